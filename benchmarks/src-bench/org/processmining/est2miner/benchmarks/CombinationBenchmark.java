@@ -0,0 +1,42 @@
+package org.processmining.est2miner.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.processmining.est2miner.algorithms.placecombination.BFSDeltaCombinator;
+import org.processmining.est2miner.models.coreobjects.ESTPlace;
+import org.processmining.est2miner.models.coreobjects.ESTVariantVector;
+
+import java.util.concurrent.TimeUnit;
+
+//combination of the evaluated candidate places with a process model that already contains some fitting places
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CombinationBenchmark {
+    private static final int MODEL_PLACES = 4;
+
+    @State(Scope.Benchmark)
+    public static class CombinatorState {
+        public BFSDeltaCombinator combinator;
+        public ESTVariantVector modelVariantVector;
+
+        @Setup(Level.Trial)
+        public void setUp(LogState state) {
+            int tauAbsolute = (int) Math.ceil(LogState.TAU * state.log.getNumOfTraces());
+            combinator = new BFSDeltaCombinator(5, tauAbsolute, LogState.DELTA, state.getTraceCounts(), LogState.MAX_DEPTH, state.log);
+            modelVariantVector = ESTVariantVector.allTrue(state.log.getTraceVariants().size());
+            for (ESTPlace place : state.fittingPlaces.subList(0, Math.min(MODEL_PLACES, state.fittingPlaces.size()))) {
+                modelVariantVector.intersect(place.getVariantVector());
+            }
+        }
+    }
+
+    @Benchmark
+    public void combinePlace(LogState state, CombinatorState combinatorState, Blackhole blackhole) {
+        for (ESTPlace place : state.places) {
+            blackhole.consume(combinatorState.combinator.combinePlace(combinatorState.modelVariantVector, place));
+        }
+    }
+}
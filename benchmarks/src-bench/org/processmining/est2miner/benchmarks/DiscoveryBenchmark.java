@@ -0,0 +1,60 @@
+package org.processmining.est2miner.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.processmining.est2miner.parameters.Parameters;
+import org.processmining.est2miner.plugins.ESTSquareMinerPlugin;
+import org.processmining.framework.plugin.PluginContext;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+//end to end discovery on the synthetic log, including preprocessing, implicit place removal and the creation of the Petri net
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DiscoveryBenchmark {
+    @Param({"1", "4"})
+    public int threads;
+
+    private PrintStream out;
+    private PluginContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        //the discovery reports its progress on System.out
+        out = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+        context = createContext();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(out);
+    }
+
+    @Benchmark
+    public Object[] runDiscovery(LogState state) {
+        Parameters parameters = new Parameters(LogState.MAX_DEPTH, LogState.TAU, LogState.DELTA, true, threads);
+        return new ESTSquareMinerPlugin().runDiscovery(state.partialOrderLog, null, parameters, context);
+    }
+
+    //plugin context outside of ProM, the connections created by the discovery are dropped
+    private static PluginContext createContext() {
+        ClassLoader classLoader = DiscoveryBenchmark.class.getClassLoader();
+        return (PluginContext) Proxy.newProxyInstance(classLoader, new Class<?>[]{PluginContext.class}, (proxy, method, args) -> {
+            if (method.getName().equals("getConnectionManager")) {
+                return Proxy.newProxyInstance(classLoader, new Class<?>[]{method.getReturnType()}, (manager, managerMethod, managerArgs) -> null);
+            }
+            return null;
+        });
+    }
+}
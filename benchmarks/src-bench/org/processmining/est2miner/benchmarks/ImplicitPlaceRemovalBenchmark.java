@@ -0,0 +1,28 @@
+package org.processmining.est2miner.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.processmining.est2miner.algorithms.implicitplaceremoval.OptimizationBasedImplicitPlaceRemover;
+import org.processmining.est2miner.models.coreobjects.ESTPlace;
+import org.processmining.est2miner.models.coreobjects.ESTProcessModel;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+//implicit place removal on a model consisting of the fitting candidate places, many of them are implicit
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImplicitPlaceRemovalBenchmark {
+    @Param({"40"})
+    public int modelPlaces;
+
+    @Benchmark
+    public ESTProcessModel removeAllIPs(LogState state) {
+        ArrayList<ESTPlace> places = new ArrayList<>(state.fittingPlaces.subList(0, Math.min(modelPlaces, state.fittingPlaces.size())));
+        ESTProcessModel model = new ESTProcessModel(places, state.transitions, state.log.getTraceVariants().size());
+        return new OptimizationBasedImplicitPlaceRemover(state.transitions, state.log).removeAllIPs(model);
+    }
+}
@@ -0,0 +1,92 @@
+package org.processmining.est2miner.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.processmining.est2miner.algorithms.candidatetraversal.BFSCandidateTraverser;
+import org.processmining.est2miner.algorithms.placeevaluation.PlaceEvaluator;
+import org.processmining.est2miner.models.coreobjects.*;
+import org.processmining.est2miner.models.preprocessing.CountedPLog;
+import org.processmining.est2miner.parameters.Parameters;
+
+import java.util.ArrayList;
+
+//synthetic log and the candidate places shared by the benchmarks, the log size is configured by the parameters
+//e.g. -p traces=100000 -p activities=20, or -p traceLength=100,300,600 for long traces
+@State(Scope.Benchmark)
+public class LogState {
+    @Param({"1000", "10000"})
+    public int traces;
+
+    @Param({"10"})
+    public int activities;
+
+    @Param({"50"})
+    public int variants;
+
+    @Param({"0.3"})
+    public double concurrency;
+
+    @Param({"0.1"})
+    public double noise;
+
+    @Param({"0"})
+    public int traceLength; //minimum number of events per trace, 0 for a single pass through the process
+
+    @Param({"256"})
+    public int candidatePlaces;
+
+    public static final int MAX_DEPTH = 4;
+    public static final double TAU = 0.8;
+    public static final double DELTA = 0.1;
+    public static final long SEED = 42;
+
+    public ESTPartialOrderLog partialOrderLog;
+    public CountedPLog countedPLog;
+    public ESTLog log;
+    public String[] transitions;
+    public ArrayList<ESTPlace> places; //the first candidate places of the traversal, evaluated on the log
+    public ArrayList<ESTPlace> fittingPlaces;
+    public boolean[][] produces; //per place, like PlaceEvaluator
+    public boolean[][] consumes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        partialOrderLog = new SyntheticLogGenerator(activities, concurrency, noise, SEED).generate(traces, variants, traceLength);
+        countedPLog = new CountedPLog(partialOrderLog);
+        log = new ESTLog(countedPLog);
+        transitions = log.getInTransitions();
+        ESTPlace.setNumVariants(log.getTraceVariants().size());
+
+        Parameters parameters = new Parameters(MAX_DEPTH, TAU, DELTA, true, 1);
+        BFSCandidateTraverser traverser = new BFSCandidateTraverser(transitions, log.getOutTransitionMapping(), parameters);
+        PlaceEvaluator evaluator = new PlaceEvaluator(log, TAU);
+        places = new ArrayList<>();
+        fittingPlaces = new ArrayList<>();
+        ESTPlace place = traverser.getNext(null, ESTPlaceStatus.FIT);
+        while (place != null && places.size() < candidatePlaces) {
+            ESTPlaceStatus status = evaluator.testPlace(place);
+            places.add(place);
+            if (status == ESTPlaceStatus.FIT) {
+                fittingPlaces.add(place);
+            }
+            place = traverser.getNext(place, ESTPlaceStatus.FIT);
+        }
+
+        produces = new boolean[places.size()][transitions.length];
+        consumes = new boolean[places.size()][transitions.length];
+        for (int p = 0; p < places.size(); p++) {
+            for (int t = 0; t < transitions.length; t++) {
+                produces[p][t] = places.get(p).getInputTrKey().contains(t);
+                consumes[p][t] = places.get(p).getOutputTrKey().contains(t);
+            }
+        }
+    }
+
+    //trace counts per variant, like in the plugin
+    public int[] getTraceCounts() {
+        int[] result = new int[log.getTraceVariants().size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = log.getTraceVariantCounts().get(log.getTraceVariants().get(i));
+        }
+        return result;
+    }
+}
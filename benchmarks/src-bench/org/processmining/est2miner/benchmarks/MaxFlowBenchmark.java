@@ -0,0 +1,94 @@
+package org.processmining.est2miner.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.processmining.est2miner.algorithms.placeevaluation.MaxFlowDinic;
+import org.processmining.est2miner.algorithms.placeevaluation.MaxFlowPreflowN3;
+import org.processmining.est2miner.models.coreobjects.ESTCompiledPartialOrder;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+//flow check of the replay: the networks of the first candidate places on all variants, solved by both max flow implementations
+//the gap between them grows with the trace length, compare e.g. -p traceLength=100,300,600 -p traces=1000
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MaxFlowBenchmark {
+    private static final int PLACES = 8;
+
+    //edge list of a flow network, built like in LpoESTCompiledValidator: every event is split into a start and an end node
+    public static class Network {
+        final int n;
+        final int[] from;
+        final int[] to;
+        final int[] capacity; //MaxFlowDinic.UNBOUNDED for unbounded edges
+
+        Network(ESTCompiledPartialOrder partialOrder, boolean[] produces, boolean[] consumes) {
+            n = partialOrder.size() * 2 + 2;
+            int sink = n - 1;
+            ArrayList<int[]> edges = new ArrayList<>();
+            for (int i = 0; i < partialOrder.size(); i++) {
+                edges.add(new int[]{i * 2 + 1, i * 2 + 2, MaxFlowDinic.UNBOUNDED});
+                if (produces[partialOrder.getActivity(i)]) {
+                    edges.add(new int[]{0, i * 2 + 2, 1});
+                }
+                if (consumes[partialOrder.getActivity(i)]) {
+                    edges.add(new int[]{i * 2 + 1, sink, 1});
+                }
+                int end = partialOrder.getSuccessorStart(i) + partialOrder.getSuccessorCount(i);
+                for (int k = partialOrder.getSuccessorStart(i); k < end; k++) {
+                    edges.add(new int[]{i * 2 + 2, partialOrder.getSuccessor(k) * 2 + 1, MaxFlowDinic.UNBOUNDED});
+                }
+            }
+            from = new int[edges.size()];
+            to = new int[edges.size()];
+            capacity = new int[edges.size()];
+            for (int e = 0; e < edges.size(); e++) {
+                from[e] = edges.get(e)[0];
+                to[e] = edges.get(e)[1];
+                capacity[e] = edges.get(e)[2];
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class NetworkState {
+        public ArrayList<Network> networks;
+
+        @Setup(Level.Trial)
+        public void setUp(LogState state) {
+            networks = new ArrayList<>();
+            for (int p = 0; p < Math.min(PLACES, state.places.size()); p++) {
+                for (ESTCompiledPartialOrder variant : state.log.getCompiledVariants()) {
+                    networks.add(new Network(variant, state.produces[p], state.consumes[p]));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void preflowN3(NetworkState state, Blackhole blackhole) {
+        for (Network network : state.networks) {
+            MaxFlowPreflowN3 maxFlow = new MaxFlowPreflowN3(network.n);
+            for (int e = 0; e < network.from.length; e++) {
+                maxFlow.setCapValue(network.from[e], network.to[e], network.capacity[e]);
+            }
+            blackhole.consume(maxFlow.maxFlow(0, network.n - 1));
+        }
+    }
+
+    @Benchmark
+    public void dinic(NetworkState state, Blackhole blackhole) {
+        MaxFlowDinic maxFlow = MaxFlowDinic.forCurrentThread();
+        for (Network network : state.networks) {
+            maxFlow.reset(network.n);
+            for (int e = 0; e < network.from.length; e++) {
+                maxFlow.addCapValue(network.from[e], network.to[e], network.capacity[e]);
+            }
+            blackhole.consume(maxFlow.maxFlow(0, network.n - 1));
+        }
+    }
+}
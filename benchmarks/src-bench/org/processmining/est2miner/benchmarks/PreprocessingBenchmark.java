@@ -0,0 +1,19 @@
+package org.processmining.est2miner.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.processmining.est2miner.models.preprocessing.CountedPLog;
+
+import java.util.concurrent.TimeUnit;
+
+//counting the partial order variants of the log, including the isomorphism checks
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PreprocessingBenchmark {
+    @Benchmark
+    public CountedPLog countedPLog(LogState state) {
+        return new CountedPLog(state.partialOrderLog);
+    }
+}
@@ -0,0 +1,53 @@
+package org.processmining.est2miner.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.processmining.est2miner.algorithms.placeevaluation.LpoESTFireValidator;
+import org.processmining.est2miner.algorithms.placeevaluation.eST2PlaceEvaluator;
+import org.processmining.est2miner.models.coreobjects.ESTPartialOrder;
+import org.processmining.est2miner.models.coreobjects.ESTPlace;
+import org.processmining.models.graphbased.directed.petrinet.Petrinet;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+//replay of the candidate places on the variants of the log, once on the compiled variants and once with the Petri net based validator
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReplayBenchmark {
+    private static final int FIRE_VALIDATOR_PLACES = 16; //the Petri net based validator is much slower, only some places are replayed
+
+    @State(Scope.Benchmark)
+    public static class PetrinetState {
+        public ArrayList<Petrinet> placeNets;
+        public ArrayList<ESTPartialOrder> variants;
+
+        @Setup(Level.Trial)
+        public void setUp(LogState state) {
+            placeNets = new ArrayList<>();
+            for (ESTPlace place : state.places.subList(0, Math.min(FIRE_VALIDATOR_PLACES, state.places.size()))) {
+                placeNets.add(eST2PlaceEvaluator.createPlacePetriNet(place.getIngoingTransitionNameSet(state.transitions), place.getOutgoingTransitionNameSet(state.transitions)));
+            }
+            variants = state.countedPLog.getVariantLog();
+        }
+    }
+
+    @Benchmark
+    public void evaluatePlaceWithLog(LogState state, Blackhole blackhole) {
+        for (int p = 0; p < state.places.size(); p++) {
+            blackhole.consume(eST2PlaceEvaluator.evaluatePlaceWithLog(state.log.getCompiledVariants(), state.log.getVariantCounts(), state.log.getMaxVariantSize(), state.produces[p], state.consumes[p], state.places.get(p)));
+        }
+    }
+
+    @Benchmark
+    public void fireValidator(PetrinetState state, Blackhole blackhole) {
+        for (Petrinet placeNet : state.placeNets) {
+            for (ESTPartialOrder variant : state.variants) {
+                blackhole.consume(new LpoESTFireValidator(placeNet, variant).validate());
+            }
+        }
+    }
+}
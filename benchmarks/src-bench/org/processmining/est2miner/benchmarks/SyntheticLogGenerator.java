@@ -0,0 +1,115 @@
+package org.processmining.est2miner.benchmarks;
+
+import org.processmining.est2miner.models.coreobjects.ESTPartialOrder;
+import org.processmining.est2miner.models.coreobjects.ESTPartialOrderLog;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+//generates partial order logs of a block structured process: a sequence of blocks over the activities,
+//every block is either a single activity or a number of concurrent branches, blocks may be skipped or repeated
+//the traces are drawn from a fixed number of variants with a skewed distribution, so variants repeat like in real logs
+//for long traces the whole sequence of blocks is repeated, like a loop around the process, until a minimum number of events is reached
+public class SyntheticLogGenerator {
+    private final int numActivities;
+    private final double concurrency; //probability that a block consists of concurrent branches
+    private final double noise; //probability that a block of a variant is skipped or repeated
+    private final Random random;
+
+    public SyntheticLogGenerator(int numActivities, double concurrency, double noise, long seed) {
+        this.numActivities = numActivities;
+        this.concurrency = concurrency;
+        this.noise = noise;
+        this.random = new Random(seed);
+    }
+
+    public ESTPartialOrderLog generate(int numTraces, int numVariants) {
+        return generate(numTraces, numVariants, 0);
+    }
+
+    public ESTPartialOrderLog generate(int numTraces, int numVariants, int minTraceLength) {
+        ArrayList<ArrayList<Integer>> blocks = createBlocks();
+        ArrayList<Variant> variants = new ArrayList<>();
+        for (int v = 0; v < numVariants; v++) {
+            variants.add(createVariant(blocks, minTraceLength));
+        }
+
+        //every trace is a partial order of its own, like in a converted PLog
+        HashMap<String, String> labels = new HashMap<>();
+        ESTPartialOrderLog result = new ESTPartialOrderLog();
+        for (int t = 0; t < numTraces; t++) {
+            //geometric distribution: the first variants are by far the most frequent ones
+            int v = (int) Math.min(numVariants - 1, Math.floor(Math.log(1 - random.nextDouble()) / Math.log(0.8)));
+            Variant variant = variants.get(v);
+            result.add(new ESTPartialOrder(variant.events, variant.sources, variant.targets, labels));
+        }
+
+        return result;
+    }
+
+    //splits the activities into blocks, the activities of a block are executed concurrently
+    private ArrayList<ArrayList<Integer>> createBlocks() {
+        ArrayList<ArrayList<Integer>> result = new ArrayList<>();
+        int activity = 0;
+        while (activity < numActivities) {
+            ArrayList<Integer> block = new ArrayList<>();
+            int branches = random.nextDouble() < concurrency ? 2 + random.nextInt(3) : 1;
+            for (int b = 0; b < branches && activity < numActivities; b++) {
+                block.add(activity++);
+            }
+            result.add(block);
+        }
+
+        return result;
+    }
+
+    private Variant createVariant(ArrayList<ArrayList<Integer>> blocks, int minTraceLength) {
+        ArrayList<String> events = new ArrayList<>();
+        ArrayList<Integer> sources = new ArrayList<>();
+        ArrayList<Integer> targets = new ArrayList<>();
+
+        ArrayList<Integer> previousBlock = new ArrayList<>(); //events of the last executed block
+        do {
+            for (ArrayList<Integer> block : blocks) {
+                int repetitions = 1;
+                if (random.nextDouble() < noise) {
+                    repetitions = random.nextBoolean() ? 0 : 2;
+                }
+                for (int r = 0; r < repetitions; r++) {
+                    ArrayList<Integer> currentBlock = new ArrayList<>();
+                    for (int activity : block) {
+                        int event = events.size();
+                        events.add("a" + activity);
+                        for (int previous : previousBlock) {
+                            sources.add(previous);
+                            targets.add(event);
+                        }
+                        currentBlock.add(event);
+                    }
+                    previousBlock = currentBlock;
+                }
+            }
+        } while (events.size() < minTraceLength);
+
+        Variant result = new Variant(events.toArray(new String[0]), sources.size());
+        for (int i = 0; i < sources.size(); i++) {
+            result.sources[i] = sources.get(i);
+            result.targets[i] = targets.get(i);
+        }
+
+        return result;
+    }
+
+    private static class Variant {
+        private final String[] events;
+        private final int[] sources;
+        private final int[] targets;
+
+        private Variant(String[] events, int numDependencies) {
+            this.events = events;
+            this.sources = new int[numDependencies];
+            this.targets = new int[numDependencies];
+        }
+    }
+}
@@ -1,11 +1,12 @@
 package org.processmining.est2miner.algorithms.candidatetraversal;
 
 import org.processmining.est2miner.models.coreobjects.ESTPlace;
+import org.processmining.est2miner.models.coreobjects.ESTPlaceKey;
 import org.processmining.est2miner.models.coreobjects.ESTPlaceStatus;
 import org.processmining.est2miner.parameters.Parameters;
 import org.processmining.est2miner.models.PlugInStatistics;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 
 /*
@@ -18,22 +19,36 @@ public abstract class AbstractCandidateTraverser {
     protected int[] outTrMapping; //array of indices (of position in transitions array) linking to transition names corresponding to outorder
     protected int largestOutIndex;
     protected int largestInIndex;
-    protected LinkedList<ESTPlace> roots;
+    protected CandidateQueue roots; //the candidates still to be returned, created from their parent when they are polled
     protected ESTPlace currentRoot;
     protected boolean limitDepth;
     protected int depthLimit;
+    protected int deepestCutDepth; //depth of the deepest child cut off by other criteria than fitness, see getDeepestCutDepth()
 
 
     //returns the next place based on the last place, additional information, and the chosen strategy (subclass).
     //returns null when all candidates have been considered/skipped
     public abstract ESTPlace getNext(ESTPlace lastP, ESTPlaceStatus fitness);
 
+    //returns up to maxBatchSize next candidates without waiting for their evaluation, empty when all candidates have been considered/skipped
+    //the children of every returned place have to be added using addChildren() in the order of the batch, before requesting the next batch
+    public abstract ArrayList<ESTPlace> getNextBatch(int maxBatchSize);
+
+    //adds the (not cut-off) children of the given evaluated place, the counterpart of getNextBatch()
+    public abstract void addChildren(ESTPlace place, ESTPlaceStatus fitness);
+
+    //returns the tree depth of the deepest child that was cut off although the fitness of its parent allowed it, 0 if there is none
+    //the level of this depth would have been reached by the traversal without these cut-offs
+    public int getDeepestCutDepth() {
+        return deepestCutDepth;
+    }
+
     //abstract class cannot be instantiated, constructor used by subclasses
     public AbstractCandidateTraverser(final String[] transitions, final int[] outTrMapping, Parameters parameters) {
         this.transitions = transitions;
         this.outTrMapping = outTrMapping;
-        roots = computeBaseRoots();
-        currentRoot = roots.removeFirst();
+        roots = computeBaseRoots(parameters.getMaxCandidatesInMemory());
+        currentRoot = roots.poll();
         this.largestOutIndex = getMappedTransitionIndex(outTrMapping.length - 1); //largest out index can be mapped anywhere in the transitions array
         this.largestInIndex = transitions.length - 1;
         this.limitDepth = true;
@@ -43,15 +58,18 @@ public abstract class AbstractCandidateTraverser {
 
     //adds all base roots, that are places with only one in and one out transition (first level places)
     //assume in-index 0 = end, out-index 0 = start (transitions[0]=end, transitions[getTransitionIndex(0)]=start)
-    protected LinkedList<ESTPlace> computeBaseRoots() {
+    //the returned queue keeps at most about maxCandidatesInMemory candidates in the heap, the further candidates are spilled to disk
+    protected CandidateQueue computeBaseRoots(long maxCandidatesInMemory) {
         long startTime = System.currentTimeMillis();
-        LinkedList<ESTPlace> baseRoots = new LinkedList<>();
+        CandidateQueue baseRoots = new CandidateQueue(maxCandidatesInMemory, transitions.length);
         for (int in = 1; in < transitions.length; in++) {
+            int[] outTransitions = new int[transitions.length - 1];
             for (int out = 1; out < transitions.length; out++) {
 //				if(!(transitions[in].equals(transitions[getTransitionIndex(0)]) && transitions[getTransitionIndex(out)].equals(transitions[0]))) {//exclude (start|end)
-                baseRoots.add(new ESTPlace(getMask(in), getMask(getMappedTransitionIndex(out))));
+                outTransitions[out - 1] = getMappedTransitionIndex(out);
 //				}
             }
+            baseRoots.addSiblings(getKey(in), ESTPlaceKey.empty(transitions.length), null, false, outTransitions);
         }
         PlugInStatistics.getInstance().incTimeCandidateFinding(System.currentTimeMillis() - startTime);
         return baseRoots;
@@ -64,9 +82,9 @@ public abstract class AbstractCandidateTraverser {
 
 
     //returns the index in the outgoing transition mapping array corresponding to the 'largest' (highest ordering, rightmost) transition in the given outkey
-    protected int getLargestOutTrIndex(int outKey) {
+    protected int getLargestOutTrIndex(ESTPlaceKey outKey) {
         for (int i = outTrMapping.length - 1; i >= 0; i--) { //reverse iterate the out mapping and compare until transition is found
-            if ((getMask(getMappedTransitionIndex(i)) & outKey) > 0) {
+            if (outKey.contains(getMappedTransitionIndex(i))) {
                 return i;
             }
         }
@@ -74,37 +92,32 @@ public abstract class AbstractCandidateTraverser {
     }
 
     //returns the index in the (ingoing) transition array corresponding to the 'largest' (highest ordering, rightmost) transition in the given inkey
-    protected int getLargestInTrIndex(int inKey) {
-        for (int i = transitions.length - 1; i >= 0; i--) { //reverse iterate the transitions and compare until transition is found
-            if ((getMask(i) & inKey) > 0) {
-                return i;
-            }
-        }
-        return 0;
+    protected int getLargestInTrIndex(ESTPlaceKey inKey) {
+        return Math.max(inKey.lastPosition(), 0);
     }
 
 
     //test whether this place is eligible for overfed pruning
     protected boolean hasSingleMaximalOutTransition(ESTPlace place) {
-        return place.getOutputTrKey() == getMask(largestOutIndex);
+        return place.getOutputTrKey().equals(getKey(largestOutIndex));
     }
 
     // return current tree depth, i.e., the overall number of transitions
     protected int getCurrentDepth(ESTPlace place) {
-        return Integer.bitCount(place.getInputTrKey()) + Integer.bitCount(place.getOutputTrKey());
+        return place.getInputTrKey().size() + place.getOutputTrKey().size();
     }
 
     //removes the current root from roots, and sets first element of roots as new current root
     protected ESTPlace getNextRoot() {
         if (!roots.isEmpty()) {
-            currentRoot = roots.remove(0);
+            currentRoot = roots.poll();
             return currentRoot;
         }
         return null;
     }
 
-    //for a given position in the (ingoing) transition array return the corresponding bitmask
-    public int getMask(final int pos) {
-        return 1 << transitions.length - 1 - pos;
+    //for a given position in the (ingoing) transition array return the key containing only this transition
+    public ESTPlaceKey getKey(final int pos) {
+        return ESTPlaceKey.of(pos, transitions.length);
     }
 }
\ No newline at end of file
@@ -1,12 +1,14 @@
 package org.processmining.est2miner.algorithms.candidatetraversal;
 
+import org.processmining.est2miner.models.coreobjects.ESTLog;
 import org.processmining.est2miner.models.coreobjects.ESTPlace;
+import org.processmining.est2miner.models.coreobjects.ESTPlaceKey;
 import org.processmining.est2miner.models.coreobjects.ESTPlaceStatus;
 import org.processmining.est2miner.parameters.Parameters;
 import org.processmining.est2miner.models.PlugInStatistics;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
 
 
 /*
@@ -19,9 +21,18 @@ import java.util.Collection;
 
 //ASSUME THAT POS 0 OF TRANSITIONS IS END, POS 0 OF OUTMAPPING MAPS TO START
 public class BFSCandidateTraverser extends AbstractCandidateTraverser {
+    private boolean currentRootReturned = false; //the first root is handed out by getNext(null, ...) or by the first batch
+    private final PrecedenceCandidatePruner pruner; //null if children are only cut off based on fitness
 
     public BFSCandidateTraverser(final String[] transitions, final int[] outTrMapping, Parameters parameters) {
         super(transitions, outTrMapping, parameters);
+        this.pruner = null;
+    }
+
+    //additionally cuts off children whose subtrees cannot contain a fitting place according to the eventually-follows relation of the log
+    public BFSCandidateTraverser(final String[] transitions, final int[] outTrMapping, Parameters parameters, ESTLog log) {
+        super(transitions, outTrMapping, parameters);
+        this.pruner = new PrecedenceCandidatePruner(log, parameters.getThresholdTau());
     }
 
 
@@ -35,6 +46,7 @@ public class BFSCandidateTraverser extends AbstractCandidateTraverser {
         long startTime = System.currentTimeMillis();
         //case first place
         if (lastP == null) {
+            currentRootReturned = true;
             PlugInStatistics.getInstance().incTimeCandidateFinding(System.currentTimeMillis() - startTime);
             return currentRoot;
         }
@@ -45,53 +57,117 @@ public class BFSCandidateTraverser extends AbstractCandidateTraverser {
     }
 
 
+    //returns the next places of the queue, without adding children of previously returned places
+    //since children are always appended at the end of the queue, adding them afterwards (in batch order) results in the same traversal as getNext()
+    public ArrayList<ESTPlace> getNextBatch(int maxBatchSize) {
+        long startTime = System.currentTimeMillis();
+        ArrayList<ESTPlace> batch = new ArrayList<>();
+        if (!currentRootReturned) {
+            currentRootReturned = true;
+            batch.add(currentRoot);
+        }
+        while (batch.size() < maxBatchSize && !roots.isEmpty()) {
+            batch.add(getNextRoot());
+        }
+        PlugInStatistics.getInstance().incTimeCandidateFinding(System.currentTimeMillis() - startTime);
+        return batch;
+    }
+
+    public void addChildren(ESTPlace place, ESTPlaceStatus fitness) {
+        long startTime = System.currentTimeMillis();
+        addValidChildrenToQueue(place, fitness);
+        PlugInStatistics.getInstance().incTimeCandidateFinding(System.currentTimeMillis() - startTime);
+    }
+
+
     private void addValidChildrenToQueue(ESTPlace place, ESTPlaceStatus fitness) {
-        ArrayList<ESTPlace> newChildren = new ArrayList<>();
         //do not add children if depth limit is reached
         if (!this.limitDepth || getCurrentDepth(place) != this.depthLimit) {
+            //the children are only created when they are polled from the queue, here they are given by their added transitions
+            int[] outTransitions = getValidOutTransitions(place);
+            int[] inTransitions = getValidInTransitions(place);
             if (fitness != ESTPlaceStatus.UNDERFED && fitness != ESTPlaceStatus.MALFED) {
-                newChildren.addAll(getValidOutChildren(place));
+                outTransitions = pruneOutChildren(place, outTransitions);
             } else {//for statistics only
-                PlugInStatistics.getInstance().incNumCutPaths(getValidOutChildren(place).size());
+                PlugInStatistics.getInstance().incNumCutPaths(outTransitions.length);
+                outTransitions = new int[0];
             }
             if ((fitness != ESTPlaceStatus.MALFED && fitness != ESTPlaceStatus.OVERFED) || !hasSingleMaximalOutTransition(place)) { //asymmetric pruning of overfed places
-                newChildren.addAll(getValidInChildren(place));
+                inTransitions = pruneInChildren(place, inTransitions);
             } else {//for statistics only
-                PlugInStatistics.getInstance().incNumCutPaths(getValidInChildren(place).size());
+                PlugInStatistics.getInstance().incNumCutPaths(inTransitions.length);
+                inTransitions = new int[0];
+            }
+            this.roots.addSiblings(place.getInputTrKey(), place.getOutputTrKey(), place, false, outTransitions);
+            this.roots.addSiblings(place.getInputTrKey(), place.getOutputTrKey(), place, true, inTransitions);
+            if (outTransitions.length + inTransitions.length > 0) {
+                return; //the replay profile is released by the last of these children, see ESTPlace
             }
         }
+        place.clearReplayProfile(); //no child will reuse it
+    }
 
-        this.roots.addAll(newChildren);
+
+    //removes the out children that cannot lead to a fitting place, the children are given by their added out transitions in tree order
+    private int[] pruneOutChildren(ESTPlace place, int[] outTransitions) {
+        if (pruner == null || outTransitions.length == 0) {
+            return outTransitions;
+        }
+        return removePrunable(place, outTransitions, pruner.getPrunableOutChildren(place.getInputTrKey(), place.getOutputTrKey(), outTransitions));
+    }
+
+    //removes the in children that cannot lead to a fitting place, the children are given by their added in transitions in tree order
+    private int[] pruneInChildren(ESTPlace place, int[] inTransitions) {
+        if (pruner == null || inTransitions.length == 0) {
+            return inTransitions;
+        }
+        //out transitions the descendants of the in children may add
+        ESTPlaceKey laterOutKey = ESTPlaceKey.empty(transitions.length);
+        for (int i = getLargestOutTrIndex(place.getOutputTrKey()) + 1; i < outTrMapping.length; i++) {
+            laterOutKey = laterOutKey.with(getMappedTransitionIndex(i));
+        }
+        return removePrunable(place, inTransitions, pruner.getPrunableInChildren(place.getInputTrKey(), place.getOutputTrKey(), inTransitions, laterOutKey));
+    }
+
+    private int[] removePrunable(ESTPlace place, int[] addedTransitions, boolean[] prunable) {
+        int[] result = new int[addedTransitions.length];
+        int size = 0;
+        for (int j = 0; j < addedTransitions.length; j++) {
+            if (!prunable[j]) {
+                result[size++] = addedTransitions[j];
+            }
+        }
+        if (size < addedTransitions.length) {
+            deepestCutDepth = Math.max(deepestCutDepth, getCurrentDepth(place) + 1);
+        }
+        PlugInStatistics.getInstance().incNumCutPaths(addedTransitions.length - size);
+        return Arrays.copyOf(result, size);
     }
 
 
+    //returns the in transitions added by the in children of the given place, in tree order
     //assume fitness and tree level have been tested, other criteria still need to be checked
-    private Collection<? extends ESTPlace> getValidInChildren(ESTPlace place) {
-        ArrayList<ESTPlace> inChildren = new ArrayList<>();
-        if (Integer.bitCount(place.getOutputTrKey()) > 1) {
-            return inChildren; //this place has no in transition children (more than one out transition)
+    private int[] getValidInTransitions(ESTPlace place) {
+        if (place.getOutputTrKey().size() > 1) {
+            return new int[0]; //this place has no in transition children (more than one out transition)
         }
-        int nextOutKey = place.getOutputTrKey();
-        int lastInKey = place.getInputTrKey();
-        int largestInIndex = getLargestInTrIndex(lastInKey);
+        int largestInIndex = getLargestInTrIndex(place.getInputTrKey());
+        int[] result = new int[transitions.length - largestInIndex - 1];
         for (int i = largestInIndex + 1; i < transitions.length; i++) {
-            int nextInKey = (lastInKey | getMask(i));
-            inChildren.add(new ESTPlace(nextInKey, nextOutKey));
+            result[i - largestInIndex - 1] = i;
         }
-        return inChildren;
+        return result;
     }
 
+    //returns the out transitions added by the out children of the given place, in tree order
     //assume fitness and tree level have been tested, other criteria still need to be checked
-    private Collection<? extends ESTPlace> getValidOutChildren(ESTPlace place) {
-        ArrayList<ESTPlace> outChildren = new ArrayList<>();
-        int nextInKey = place.getInputTrKey();
-        int lastOutKey = place.getOutputTrKey();
-        int largestOutMappingIndex = getLargestOutTrIndex(lastOutKey);
+    private int[] getValidOutTransitions(ESTPlace place) {
+        int largestOutMappingIndex = getLargestOutTrIndex(place.getOutputTrKey());
+        int[] result = new int[outTrMapping.length - largestOutMappingIndex - 1];
         for (int i = largestOutMappingIndex + 1; i < outTrMapping.length; i++) {
-            int nextOutKey = (lastOutKey | getMask(getMappedTransitionIndex(i)));
-            outChildren.add(new ESTPlace(nextInKey, nextOutKey));
+            result[i - largestOutMappingIndex - 1] = getMappedTransitionIndex(i);
         }
-        return outChildren;
+        return result;
     }
 
 }
\ No newline at end of file
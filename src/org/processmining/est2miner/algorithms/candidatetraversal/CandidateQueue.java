@@ -0,0 +1,259 @@
+package org.processmining.est2miner.algorithms.candidatetraversal;
+
+import org.processmining.est2miner.models.coreobjects.ESTPlace;
+import org.processmining.est2miner.models.coreobjects.ESTPlaceKey;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+
+
+/*
+ * FIFO queue of candidate places for the traversal of the candidate tree.
+ * Siblings are stored as a single run: the keys of the place they are derived from and the transitions they add, one int per candidate.
+ * An ESTPlace is only created when its candidate is polled, so the frontier of the deeper tree levels does not hold a place object per candidate.
+ * At most about maxCandidatesInMemory candidates are kept in the heap: the queue is polled from the head, appended to the tail,
+ * and once the head is full, every full tail is written to a segment file. The segments are read back (and deleted) in order when the head runs empty.
+ * Spilled runs lose the reference to their parent place, their candidates are then replayed on all variants instead of reusing its replay profile.
+ */
+public class CandidateQueue {
+    private static final int MAX_SEGMENT_SIZE = 1 << 24; //candidates per segment file
+    private static final int BUFFER_SIZE = 1 << 16; //bytes written to or read from a segment file at once
+
+    private final long maxCandidatesInMemory;
+    private final int numTransitions;
+    private final long segmentSize;
+    private ArrayDeque<SiblingRun> head = new ArrayDeque<>(); //first candidates of the queue
+    private final ArrayDeque<Path> segments = new ArrayDeque<>(); //spilled candidates following the head, oldest segment first
+    private ArrayDeque<SiblingRun> tail = new ArrayDeque<>(); //last candidates of the queue, following the segments
+    private long headSize;
+    private long tailSize;
+    private long size;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE); //reused for all segment files
+
+    //keeps all candidates in the heap
+    public CandidateQueue() {
+        this(Long.MAX_VALUE, 0);
+    }
+
+    public CandidateQueue(long maxCandidatesInMemory, int numTransitions) {
+        this.maxCandidatesInMemory = Math.max(2, maxCandidatesInMemory);
+        this.numTransitions = numTransitions;
+        this.segmentSize = Math.min(this.maxCandidatesInMemory / 2, MAX_SEGMENT_SIZE);
+    }
+
+    //appends one candidate per added transition (in the given order): the given keys with the transition added as ingoing (addIn) or outgoing transition
+    //the parent is handed to the created places for the reuse of its replay profile, it may be null
+    public void addSiblings(ESTPlaceKey inKey, ESTPlaceKey outKey, ESTPlace parent, boolean addIn, int[] addedTransitions) {
+        if (addedTransitions.length == 0) {
+            return;
+        }
+        if (parent != null) {
+            parent.addPendingChildren(addedTransitions.length);
+        }
+        SiblingRun run = new SiblingRun(inKey, outKey, parent, addIn, addedTransitions);
+        if (segments.isEmpty() && tail.isEmpty() && headSize < maxCandidatesInMemory / 2) {
+            head.addLast(run);
+            headSize += addedTransitions.length;
+        } else {
+            tail.addLast(run);
+            tailSize += addedTransitions.length;
+            if (tailSize >= segmentSize) {
+                segments.addLast(writeSegment(tail));
+                tail.clear();
+                tailSize = 0;
+            }
+        }
+        size += addedTransitions.length;
+    }
+
+    //removes and returns the first candidate, null if the queue is empty
+    public ESTPlace poll() {
+        if (size == 0) {
+            return null;
+        }
+        if (head.isEmpty()) {
+            refillHead();
+        }
+        SiblingRun run = head.peekFirst();
+        ESTPlace result = run.createNext();
+        if (!run.hasNext()) {
+            head.removeFirst();
+        }
+        headSize--;
+        size--;
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    //moves the next candidates in queue order to the head: the oldest segment if there is one, the tail otherwise
+    private void refillHead() {
+        if (!segments.isEmpty()) {
+            head = readSegment(segments.removeFirst());
+            headSize = 0;
+            for (SiblingRun run : head) {
+                headSize += run.addedTransitions.length;
+            }
+        } else {
+            ArrayDeque<SiblingRun> emptyHead = head;
+            head = tail;
+            headSize = tailSize;
+            tail = emptyHead;
+            tailSize = 0;
+        }
+    }
+
+
+    //________________________________segment files___________________________________________________
+
+    //a segment starts with its number of runs, every run is written as: the positions of the in key and of the out key (each preceded by their number),
+    //addIn, and the added transitions (preceded by their number)
+    private Path writeSegment(ArrayDeque<SiblingRun> runs) {
+        Path path = null;
+        try {
+            path = Files.createTempFile("est-candidates-", ".seg");
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                buffer.clear();
+                putInt(channel, runs.size());
+                for (SiblingRun run : runs) {
+                    if (run.parent != null) {
+                        run.parent.releasePendingChildren(run.addedTransitions.length - run.next);
+                    }
+                    putKey(channel, run.inKey);
+                    putKey(channel, run.outKey);
+                    putInt(channel, run.addIn ? 1 : 0);
+                    putInt(channel, run.addedTransitions.length - run.next);
+                    for (int j = run.next; j < run.addedTransitions.length; j++) {
+                        putInt(channel, run.addedTransitions[j]);
+                    }
+                }
+                flush(channel);
+            }
+            return path;
+        } catch (IOException e) {
+            deleteSegment(path);
+            throw new RuntimeException("Could not spill candidates to disk.", e);
+        }
+    }
+
+    //reads the runs of the segment and deletes its file
+    private ArrayDeque<SiblingRun> readSegment(Path path) {
+        ArrayDeque<SiblingRun> result = new ArrayDeque<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer.clear();
+            buffer.flip(); //nothing read yet
+            int numRuns = getInt(channel);
+            for (int r = 0; r < numRuns; r++) {
+                ESTPlaceKey inKey = getKey(channel);
+                ESTPlaceKey outKey = getKey(channel);
+                boolean addIn = getInt(channel) == 1;
+                int[] addedTransitions = new int[getInt(channel)];
+                for (int j = 0; j < addedTransitions.length; j++) {
+                    addedTransitions[j] = getInt(channel);
+                }
+                result.addLast(new SiblingRun(inKey, outKey, null, addIn, addedTransitions));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read spilled candidates from disk.", e);
+        } finally {
+            deleteSegment(path);
+        }
+        return result;
+    }
+
+    private static void deleteSegment(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.out.println("Could not delete the candidate segment file " + path + ": " + e.getMessage());
+        }
+    }
+
+    private void putKey(FileChannel channel, ESTPlaceKey key) throws IOException {
+        putInt(channel, key.size());
+        for (int i = key.nextPosition(0); i >= 0; i = key.nextPosition(i + 1)) {
+            putInt(channel, i);
+        }
+    }
+
+    private ESTPlaceKey getKey(FileChannel channel) throws IOException {
+        ESTPlaceKey result = ESTPlaceKey.empty(numTransitions);
+        int keySize = getInt(channel);
+        for (int k = 0; k < keySize; k++) {
+            result = result.with(getInt(channel));
+        }
+        return result;
+    }
+
+    private void putInt(FileChannel channel, int value) throws IOException {
+        if (buffer.remaining() < Integer.BYTES) {
+            flush(channel);
+        }
+        buffer.putInt(value);
+    }
+
+    private void flush(FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private int getInt(FileChannel channel) throws IOException {
+        if (buffer.remaining() < Integer.BYTES) {
+            buffer.compact();
+            while (buffer.position() < Integer.BYTES) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("The candidate segment file ends unexpectedly.");
+                }
+            }
+            buffer.flip();
+        }
+        return buffer.getInt();
+    }
+
+
+    private static class SiblingRun {
+        private final ESTPlaceKey inKey;
+        private final ESTPlaceKey outKey;
+        private final ESTPlace parent;
+        private final boolean addIn;
+        private final int[] addedTransitions;
+        private int next;
+
+        private SiblingRun(ESTPlaceKey inKey, ESTPlaceKey outKey, ESTPlace parent, boolean addIn, int[] addedTransitions) {
+            this.inKey = inKey;
+            this.outKey = outKey;
+            this.parent = parent;
+            this.addIn = addIn;
+            this.addedTransitions = addedTransitions;
+        }
+
+        private boolean hasNext() {
+            return next < addedTransitions.length;
+        }
+
+        private ESTPlace createNext() {
+            int transition = addedTransitions[next++];
+            ESTPlaceKey nextInKey = addIn ? inKey.with(transition) : inKey;
+            ESTPlaceKey nextOutKey = addIn ? outKey : outKey.with(transition);
+            return parent == null ? new ESTPlace(nextInKey, nextOutKey) : new ESTPlace(nextInKey, nextOutKey, parent);
+        }
+    }
+}
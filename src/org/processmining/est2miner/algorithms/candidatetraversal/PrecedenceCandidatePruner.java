@@ -0,0 +1,225 @@
+package org.processmining.est2miner.algorithms.candidatetraversal;
+
+import org.processmining.est2miner.models.coreobjects.ESTCompiledPartialOrder;
+import org.processmining.est2miner.models.coreobjects.ESTLog;
+import org.processmining.est2miner.models.coreobjects.ESTPlaceKey;
+import org.processmining.est2miner.models.coreobjects.ESTVariantVector;
+
+import java.util.Arrays;
+
+
+/*
+ * Cuts off subtrees of the candidate tree that cannot contain a fitting place, based on the eventually-follows relation of the log.
+ * On a variant whose replay passes all tokens to the last event, a place can only be fitting if the variant contains none of its transitions,
+ * or if an event of an ingoing transition precedes an event of an outgoing transition (otherwise the place is underfed or overfed).
+ * All places in the subtree of a child only use transitions of the child and of its later siblings on the same side,
+ * so the traces that can fit any of these places are bounded without a single replay.
+ * The eventually-follows relation is stored per variant, only for the transitions occurring in it, the variants of a precedence are derived when needed.
+ */
+public class PrecedenceCandidatePruner {
+    private final ESTLog log;
+    private final double threshold;
+    private final int numVariants;
+    private final int[] variantCounts;
+    private final int[] wordWeights;
+    private final int numTraces;
+    private final ESTVariantVector multiSinkVariants; //variants the bound does not hold for, they may always be fitting
+    private final int numWords; //words of a bitset over the transitions
+    //per variant: the transitions with an event that precedes another event (sorted), and for each of them the bitset of the transitions of the later events
+    private final int[][] precedingTransitions;
+    private final long[][] followers;
+
+    public PrecedenceCandidatePruner(final ESTLog log, final double threshold) {
+        this.log = log;
+        this.threshold = threshold;
+        this.variantCounts = log.getVariantCounts();
+        this.numVariants = variantCounts.length;
+        this.wordWeights = ESTVariantVector.computeWordWeights(variantCounts);
+        int sum = 0;
+        for (int count : variantCounts) {
+            sum += count;
+        }
+        this.numTraces = sum;
+
+        ESTCompiledPartialOrder[] variants = log.getCompiledVariants();
+        this.multiSinkVariants = new ESTVariantVector(numVariants);
+        for (int v = 0; v < numVariants; v++) {
+            multiSinkVariants.set(v, !variants[v].isSingleSink());
+        }
+
+        this.numWords = (log.getInTransitions().length + 63) >>> 6;
+        this.precedingTransitions = new int[numVariants][];
+        this.followers = new long[numVariants][];
+        for (int v = 0; v < numVariants; v++) {
+            computeFollowers(v, variants[v]);
+        }
+    }
+
+    //the precedence of events is the transitive closure of the successor relation of the compiled partial order
+    private void computeFollowers(int v, ESTCompiledPartialOrder variant) {
+        int numTransitions = log.getInTransitions().length;
+        long[][] later = new long[variant.size()][]; //transitions of the events after each event, null if there is none
+        long[][] transitionFollowers = new long[numTransitions][];
+        int numPreceding = 0;
+        for (int pos = variant.size() - 1; pos >= 0; pos--) {
+            int event = variant.getOrderedEvent(pos);
+            int end = variant.getSuccessorStart(event) + variant.getSuccessorCount(event);
+            for (int k = variant.getSuccessorStart(event); k < end; k++) {
+                int successor = variant.getSuccessor(k);
+                int successorActivity = variant.getActivity(successor);
+                if (later[event] == null) {
+                    later[event] = new long[numWords];
+                }
+                later[event][successorActivity >>> 6] |= 1L << successorActivity;
+                if (later[successor] != null) {
+                    for (int w = 0; w < numWords; w++) {
+                        later[event][w] |= later[successor][w];
+                    }
+                }
+            }
+
+            if (later[event] != null) {
+                int activity = variant.getActivity(event);
+                if (transitionFollowers[activity] == null) {
+                    transitionFollowers[activity] = new long[numWords];
+                    numPreceding++;
+                }
+                for (int w = 0; w < numWords; w++) {
+                    transitionFollowers[activity][w] |= later[event][w];
+                }
+            }
+        }
+
+        precedingTransitions[v] = new int[numPreceding];
+        followers[v] = new long[numPreceding * numWords];
+        int row = 0;
+        for (int t = 0; t < numTransitions; t++) {
+            if (transitionFollowers[t] != null) {
+                precedingTransitions[v][row] = t;
+                System.arraycopy(transitionFollowers[t], 0, followers[v], row * numWords, numWords);
+                row++;
+            }
+        }
+    }
+
+
+    //returns for every out child of the place (given by the added out transitions in tree order), whether its subtree can be cut off
+    //the descendants of an out child keep the ingoing transitions and add outgoing transitions of later out children
+    public boolean[] getPrunableOutChildren(ESTPlaceKey inKey, ESTPlaceKey outKey, int[] addedTransitions) {
+        return getPrunableChildren(inKey.or(outKey), getPrecedences(inKey, outKey), getPrecedences(inKey, addedTransitions), addedTransitions);
+    }
+
+    //returns for every in child of the place (given by the added in transitions in tree order), whether its subtree can be cut off
+    //the descendants of an in child add ingoing transitions of later in children and the outgoing transitions in laterOutKey
+    public boolean[] getPrunableInChildren(ESTPlaceKey inKey, ESTPlaceKey outKey, int[] addedTransitions, ESTPlaceKey laterOutKey) {
+        ESTPlaceKey reachableOutKey = outKey.or(laterOutKey);
+        return getPrunableChildren(inKey.or(outKey), getPrecedences(inKey, reachableOutKey), getPrecedences(addedTransitions, reachableOutKey), addedTransitions);
+    }
+
+
+    //the traces that may fit a place in the subtree of child j: those avoiding the transitions of the child,
+    //those in which one of the possible ingoing transitions precedes one of the possible outgoing transitions, and the multi-sink variants
+    private boolean[] getPrunableChildren(ESTPlaceKey placeKey, ESTVariantVector fixedPrecedences, ESTVariantVector[] addedPrecedences, int[] addedTransitions) {
+        boolean[] result = new boolean[addedTransitions.length];
+        ESTVariantVector placeOccurrences = getOccurrences(placeKey);
+        ESTVariantVector precedences = fixedPrecedences;
+        for (int j = addedTransitions.length - 1; j >= 0; j--) {
+            precedences.unite(addedPrecedences[j]);
+
+            ESTVariantVector touchedVariants = placeOccurrences.copy();
+            touchedVariants.unite(log.getTransitionOccurrences(addedTransitions[j]));
+            ESTVariantVector possiblyFitting = ESTVariantVector.allTrue(numVariants).andNot(touchedVariants);
+            possiblyFitting.unite(precedences);
+            possiblyFitting.unite(multiSinkVariants);
+
+            result[j] = (double) possiblyFitting.weightedCardinality(variantCounts, wordWeights) / numTraces < threshold;
+        }
+        return result;
+    }
+
+    //returns the variants containing any transition of the given key
+    private ESTVariantVector getOccurrences(ESTPlaceKey key) {
+        ESTVariantVector result = new ESTVariantVector(numVariants);
+        for (int t = key.nextPosition(0); t >= 0; t = key.nextPosition(t + 1)) {
+            result.unite(log.getTransitionOccurrences(t));
+        }
+        return result;
+    }
+
+    //returns the variants in which an event of a transition in inKey precedes an event of a transition in outKey
+    private ESTVariantVector getPrecedences(ESTPlaceKey inKey, ESTPlaceKey outKey) {
+        long[] outWords = toWords(outKey);
+        ESTVariantVector result = new ESTVariantVector(numVariants);
+        ESTVariantVector candidates = getOccurrences(inKey);
+        for (int v = candidates.nextSetBit(0); v >= 0; v = candidates.nextSetBit(v + 1)) {
+            result.set(v, intersects(getFollowers(v, inKey), 0, outWords));
+        }
+        return result;
+    }
+
+    //returns for every given transition the variants in which an event of a transition in inKey precedes an event of this transition
+    private ESTVariantVector[] getPrecedences(ESTPlaceKey inKey, int[] outTransitions) {
+        ESTVariantVector[] result = new ESTVariantVector[outTransitions.length];
+        for (int j = 0; j < outTransitions.length; j++) {
+            result[j] = new ESTVariantVector(numVariants);
+        }
+        ESTVariantVector candidates = getOccurrences(inKey);
+        for (int v = candidates.nextSetBit(0); v >= 0; v = candidates.nextSetBit(v + 1)) {
+            long[] later = getFollowers(v, inKey);
+            for (int j = 0; j < outTransitions.length; j++) {
+                if ((later[outTransitions[j] >>> 6] & (1L << outTransitions[j])) != 0L) {
+                    result[j].set(v, true);
+                }
+            }
+        }
+        return result;
+    }
+
+    //returns for every given transition the variants in which an event of this transition precedes an event of a transition in outKey
+    private ESTVariantVector[] getPrecedences(int[] inTransitions, ESTPlaceKey outKey) {
+        long[] outWords = toWords(outKey);
+        ESTVariantVector[] result = new ESTVariantVector[inTransitions.length];
+        for (int j = 0; j < inTransitions.length; j++) {
+            result[j] = new ESTVariantVector(numVariants);
+            ESTVariantVector candidates = log.getTransitionOccurrences(inTransitions[j]);
+            for (int v = candidates.nextSetBit(0); v >= 0; v = candidates.nextSetBit(v + 1)) {
+                int row = Arrays.binarySearch(precedingTransitions[v], inTransitions[j]);
+                if (row >= 0 && intersects(followers[v], row * numWords, outWords)) {
+                    result[j].set(v, true);
+                }
+            }
+        }
+        return result;
+    }
+
+    //the transitions of the events that follow an event of a transition in inKey in the variant
+    private long[] getFollowers(int v, ESTPlaceKey inKey) {
+        long[] result = new long[numWords];
+        for (int in = inKey.nextPosition(0); in >= 0; in = inKey.nextPosition(in + 1)) {
+            int row = Arrays.binarySearch(precedingTransitions[v], in);
+            if (row >= 0) {
+                for (int w = 0; w < numWords; w++) {
+                    result[w] |= followers[v][row * numWords + w];
+                }
+            }
+        }
+        return result;
+    }
+
+    private boolean intersects(long[] words, int offset, long[] otherWords) {
+        for (int w = 0; w < numWords; w++) {
+            if ((words[offset + w] & otherWords[w]) != 0L) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long[] toWords(ESTPlaceKey key) {
+        long[] result = new long[numWords];
+        for (int t = key.nextPosition(0); t >= 0; t = key.nextPosition(t + 1)) {
+            result[t >>> 6] |= 1L << t;
+        }
+        return result;
+    }
+}
@@ -10,6 +10,9 @@ import org.processmining.est2miner.algorithms.implicitplaceremoval.AbstractImpli
 import org.processmining.est2miner.algorithms.placeevaluation.PlaceEvaluator;
 import org.processmining.est2miner.parameters.Parameters;
 
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+
 public abstract class AbstractDiscovery extends Thread {
     protected ESTProcessModel pM;
     protected final String[] transitions;
@@ -18,6 +21,8 @@ public abstract class AbstractDiscovery extends Thread {
     protected final AbstractImplicitPlacesRemover IPRemover;
     protected final ESTLog log;
     protected final boolean removeImpsConcurrently;
+    protected final int numEvaluationThreads;
+    protected final int evaluationBatchSize;
 
     public AbstractDiscovery(final ESTProcessModel pM, String[] transitions, final AbstractCandidateTraverser candidates, final PlaceEvaluator evaluator, AbstractImplicitPlacesRemover ipRemover, Parameters parameters, ESTLog log) {
         this.pM = pM;
@@ -27,6 +32,8 @@ public abstract class AbstractDiscovery extends Thread {
         this.IPRemover = ipRemover;
         this.log = log;
         this.removeImpsConcurrently = parameters.isRemoveImps();
+        this.numEvaluationThreads = parameters.getNumThreads();
+        this.evaluationBatchSize = parameters.getEvaluationBatchSize();
     }
 
 
@@ -46,10 +53,46 @@ public abstract class AbstractDiscovery extends Thread {
 
     //adds places according to the subclass strategy
     protected void addPlaces() throws InterruptedException {
+        int treeDepth;
+        if (numEvaluationThreads > 1) {
+            ForkJoinPool evaluationPool = new ForkJoinPool(numEvaluationThreads);
+            try {
+                treeDepth = this.traverseCandidatesInBatches(evaluationPool);
+            } finally {
+                evaluationPool.shutdownNow();
+            }
+        } else {
+            treeDepth = this.traverseCandidates();
+        }
+        //without the cut-offs of the traverser, the cut levels would have been reached with unfitting candidates, so their level actions are performed as well
+        if (!this.isInterrupted()) {
+            for (int cutTreeDepth = treeDepth + 1; cutTreeDepth <= candidates.getDeepestCutDepth(); cutTreeDepth++) {
+                performNextTreeLevelActions(cutTreeDepth - 1, cutTreeDepth, null);
+            }
+        }
+        System.out.println("________________________End of Standard Place Evaluation________________________________________________________________________ \n");
+        this.pM.updateAndPrintStatus(log);
+
+
+        System.out.println("\n ______________________Perform end of discovery actions: ________________________________________________________________________ \n");
+        pM = endOfDiscoveryActions(pM); //for delta discovery, this evaluates additional ('virtual') levels without adding further potential places
+        this.pM.updateAndPrintStatus(log);
+
+        if (this.removeImpsConcurrently) {//if enabled, remove implicit places from current model
+            pM = IPRemover.removeAllIPs(pM);
+            this.pM.updateAndPrintStatus(log);
+        }
+
+        System.out.println("_______________________________Returning to main... ________________________________________________________________________ \n");
+    }
+
+
+    //evaluates one candidate at a time, each evaluation result determines the next candidate
+    //returns the tree depth of the last evaluated candidate
+    private int traverseCandidates() {
         int currentTreeDepth = 0;
         ESTPlace current = candidates.getNext(null, ESTPlaceStatus.FIT);
         this.pM.updateAndPrintStatus(log);
-        String[] transitions = log.getInTransitions();
         while (current != null) {
             if (!this.isInterrupted()) {
 
@@ -62,7 +105,7 @@ public abstract class AbstractDiscovery extends Thread {
                 }
 
                 //-------------evaluating local fitness of current----------------------------
-                ESTPlaceStatus fitness = evaluator.testPlace(current.getIngoingTransitionNameSet(transitions), current.getOutgoingTransitionNameSet(transitions), current);
+                ESTPlaceStatus fitness = evaluator.testPlace(current);
                 if (fitness == ESTPlaceStatus.FIT) {//dealing with locally fit places
                     this.handleLocallyFittingPlace(current);
                 }
@@ -76,20 +119,50 @@ public abstract class AbstractDiscovery extends Thread {
                 break;
             }
         }//end of candidate traversal loop (interrupted or finished)
-        System.out.println("________________________End of Standard Place Evaluation________________________________________________________________________ \n");
-        this.pM.updateAndPrintStatus(log);
+        return currentTreeDepth;
+    }
 
 
-        System.out.println("\n ______________________Perform end of discovery actions: ________________________________________________________________________ \n");
-        pM = endOfDiscoveryActions(pM); //for delta discovery, this evaluates additional ('virtual') levels without adding further potential places
+    //evaluates batches of candidates concurrently, then handles the results in batch order
+    //handling a place (level actions, combination, adding children) is done sequentially in the same order as in traverseCandidates(),
+    //thus the discovered model is the same as for the sequential traversal, returns the tree depth of the last handled candidate
+    private int traverseCandidatesInBatches(ForkJoinPool evaluationPool) {
+        int currentTreeDepth = 0;
         this.pM.updateAndPrintStatus(log);
+        ArrayList<ESTPlace> batch = candidates.getNextBatch(evaluationBatchSize);
+        batchLoop:
+        while (!batch.isEmpty()) {
+            ESTPlaceStatus[] fitness = null;
+            if (!this.isInterrupted()) {
+                try {
+                    fitness = evaluator.testPlaces(batch, evaluationPool);
+                } catch (InterruptedException e) {
+                    this.interrupt(); //keep the interrupted status for the check below
+                }
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                if (this.isInterrupted() || fitness == null) {
+                    //handling interruption (time limit)
+                    System.out.println("Time limit for adding places has been reached (or other interruption).");
+                    break batchLoop;
+                }
+                ESTPlace current = batch.get(i);
 
-        if (this.removeImpsConcurrently) {//if enabled, remove implicit places from current model
-            pM = IPRemover.removeAllIPs(pM);
-            this.pM.updateAndPrintStatus(log);
-        }
+                //update current tree depth and, possibly, perform corresponding actions
+                int updatedTreeDepth = getCurrentTreeDepth(current);
+                if (currentTreeDepth != updatedTreeDepth) {
+                    performNextTreeLevelActions(currentTreeDepth, updatedTreeDepth, current);
+                    currentTreeDepth = updatedTreeDepth;
+                }
 
-        System.out.println("_______________________________Returning to main... ________________________________________________________________________ \n");
+                if (fitness[i] == ESTPlaceStatus.FIT) {//dealing with locally fit places
+                    this.handleLocallyFittingPlace(current);
+                }
+                candidates.addChildren(current, fitness[i]);
+            }
+            batch = candidates.getNextBatch(evaluationBatchSize);
+        }//end of candidate traversal loop (interrupted or finished)
+        return currentTreeDepth;
     }
 
 
@@ -98,11 +171,12 @@ public abstract class AbstractDiscovery extends Thread {
 
     abstract protected void handleLocallyFittingPlace(ESTPlace current);
 
+    //current is the first candidate of the new level, or null if the traverser cut off all candidates of the level
     abstract protected void performNextTreeLevelActions(int currentTreeDepth, int updatedTreeDepth, ESTPlace current);
 
 
     protected int getCurrentTreeDepth(ESTPlace current) {
-        return (Integer.bitCount(current.getInputTrKey()) + Integer.bitCount(current.getOutputTrKey()));
+        return current.getInputTrKey().size() + current.getOutputTrKey().size();
     }
 
     public ESTProcessModel getPM() {
@@ -27,14 +27,4 @@ public abstract class AbstractImplicitPlacesRemover {
     //trys to remove all IPs in the given PM that are related to a specific given place
     public abstract ArrayList<ESTPlace> implicitRelatedToPlace(final ESTPlace specificPlace,
                                                                final ArrayList<ESTPlace> placesToCheck);
-
-
-    //Utility Methods_______________________________________________________________________________________________
-
-    //return bitmask corresponding to position in the transition array
-    protected int getMask(final int position, final String[] transitions) {
-        return (1 << (transitions.length - 1 - position));
-    }
-
-
 }
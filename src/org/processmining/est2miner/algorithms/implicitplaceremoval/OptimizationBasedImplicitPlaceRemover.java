@@ -3,16 +3,36 @@ package org.processmining.est2miner.algorithms.implicitplaceremoval;
 import org.apache.commons.math3.optim.linear.*;
 import org.processmining.est2miner.models.coreobjects.ESTLog;
 import org.processmining.est2miner.models.coreobjects.ESTPlace;
+import org.processmining.est2miner.models.coreobjects.ESTPlaceKey;
 import org.processmining.est2miner.models.coreobjects.ESTProcessModel;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 public class OptimizationBasedImplicitPlaceRemover extends AbstractImplicitPlacesRemover {
+    private static final int PLACES_PER_THREAD = 4; //places tested concurrently per thread and round by removeAllIPs()
+
+    private final int numThreads; //number of threads testing places concurrently in removeAllIPs(), 1 tests sequentially
+    //rows of the pre-incidence and incidence matrix (one column per transition) of the places seen so far, by identity, see getIncidenceRows()
+    private final Map<ESTPlace, IncidenceRows> incidenceRows = Collections.synchronizedMap(new IdentityHashMap<>());
+    private long nextJoinNumber; //join number of the next place joining the models of the calls, see updateJoinNumbers()
+    private int numCalls; //calls of removeAllIPs() and implicitRelatedToPlace() so far
 
 
     public OptimizationBasedImplicitPlaceRemover(String[] transitions, ESTLog log) {
+        this(transitions, log, 1);
+    }
+
+    public OptimizationBasedImplicitPlaceRemover(String[] transitions, ESTLog log, int numThreads) {
         super(transitions, log);
+        this.numThreads = Math.max(1, numThreads);
     }
 
     //removes all structurally implicit places in the given pM (the relevant Trace variants are ignored)
@@ -20,189 +40,303 @@ public class OptimizationBasedImplicitPlaceRemover extends AbstractImplicitPlace
         pM.updateStatus(log); //just to be safe
         //compute all the stuff needed for the LPP
         ArrayList<ESTPlace> places = new ArrayList<>(pM.getPlaces());
+        updateJoinNumbers(places);
         final ArrayList<ESTPlace> finalPlaces = new ArrayList<>();
-        final String[] transitions = pM.getTransitions();
-        //compute pre-incidence, post-incidence and incidence matrix of pM: for each place there is a row, for each transition a column
-        final ArrayList<Integer[]> preIncMatrix = new ArrayList<>();
-        final ArrayList<Integer[]> postIncMatrix = new ArrayList<>();
-        final ArrayList<Integer[]> incMatrix = new ArrayList<>();
-        for (int p = 0; p < places.size(); p++) {
-            preIncMatrix.add(new Integer[transitions.length]);
-            postIncMatrix.add(new Integer[transitions.length]);
-            incMatrix.add(new Integer[transitions.length]);
-            ESTPlace place = places.get(p);
-            int pIn = place.getInputTrKey();
-            int pOut = place.getOutputTrKey();
-            for (int t = 0; t < transitions.length; t++) {
-                if ((pIn & getMask(t, transitions)) > 0) {//t'th transition is contained in input of p
-                    preIncMatrix.get(p)[t] = 1;
-                } else {
-                    preIncMatrix.get(p)[t] = 0;
-                }
-                if ((pOut & getMask(t, transitions)) > 0) {//t'th transition is contained in output of p
-                    postIncMatrix.get(p)[t] = 1;
-                } else {
-                    postIncMatrix.get(p)[t] = 0;
-                }
-                incMatrix.get(p)[t] = preIncMatrix.get(p)[t] - postIncMatrix.get(p)[t];
-            }
-        }
         //do the LPP magic to check implicitness for each place
         //increase speed by removing implicit places for the next iteration
-        ArrayList<ESTPlace> tempPlaces = new ArrayList<>(places);
-        while (!tempPlaces.isEmpty()) {
-            int placePos = places.indexOf(tempPlaces.get(0));
-            if (isImplicitByLPP(placePos, places, transitions, preIncMatrix, incMatrix)) {
-                //this place is implicit and can be deleted
-                places.remove(placePos);
-                preIncMatrix.remove(placePos);
-                incMatrix.remove(placePos);
-                tempPlaces.remove(0);
-            } else {
-                tempPlaces.remove(0);
-                finalPlaces.add(places.get(placePos));
+        //the next places are tested concurrently on the current model, the results are then applied in order:
+        //until the first removal the model is the one they were tested on, afterwards only the implicit places are tested again,
+        //since a place that is not implicit stays so when places are removed (Y can only use fewer places), this gives the sequential result
+        ForkJoinPool pool = numThreads > 1 ? new ForkJoinPool(numThreads) : null;
+        try {
+            ArrayList<ESTPlace> tempPlaces = new ArrayList<>(places);
+            while (!tempPlaces.isEmpty()) {
+                boolean[] implicitInCurrentModel = testNextPlaces(tempPlaces, places, pool);
+                boolean removed = false;
+                for (boolean implicitBeforeRemoval : implicitInCurrentModel) {
+                    int placePos = places.indexOf(tempPlaces.get(0));
+                    if (implicitBeforeRemoval && (!removed || isImplicit(placePos, places))) {
+                        //this place is implicit and can be deleted
+                        incidenceRows.remove(places.remove(placePos)); //joins again if it is added back
+                        tempPlaces.remove(0);
+                        removed = true;
+                    } else {
+                        tempPlaces.remove(0);
+                        finalPlaces.add(places.get(placePos));
+                    }
+                }
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
             }
         }
+        //the entries of removed places are not needed anymore
+        Set<ESTPlace> remainingPlaces = Collections.newSetFromMap(new IdentityHashMap<>());
+        remainingPlaces.addAll(finalPlaces);
+        incidenceRows.keySet().retainAll(remainingPlaces);
         pM.setPlaces(finalPlaces);
         return pM;
     }
 
+    //tests the first places of tempPlaces for implicitness in the model given by places, concurrently on the given pool (sequentially without pool)
+    private boolean[] testNextPlaces(ArrayList<ESTPlace> tempPlaces, ArrayList<ESTPlace> places, ForkJoinPool pool) {
+        int numPlaces = pool == null ? 1 : Math.min(tempPlaces.size(), PLACES_PER_THREAD * numThreads);
+        int[] placePositions = new int[numPlaces];
+        for (int j = 0; j < numPlaces; j++) {
+            placePositions[j] = places.indexOf(tempPlaces.get(j));
+        }
+        boolean[] result = new boolean[numPlaces];
+        if (pool == null) {
+            result[0] = isImplicit(placePositions[0], places);
+            return result;
+        }
+        try {
+            pool.submit(() -> IntStream.range(0, numPlaces).parallel().forEach(j -> result[j] = isImplicit(placePositions[j], places))).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+        return result;
+    }
+
 
     //check for structural implicitness of the specified place within the PM defined by the given places set (ignore relevant traces)
     public ArrayList<ESTPlace> implicitRelatedToPlace(ESTPlace currentP, ArrayList<ESTPlace> places) {
         ArrayList<ESTPlace> result = new ArrayList<>();
         //compute all the stuff needed for the LPP
         places.add(currentP);
-        //compute pre-incidence, post-incidence and incidence matrix of pM: for each place there is a row, for each transition a column
-        final ArrayList<Integer[]> preIncMatrix = new ArrayList<>();
-        final ArrayList<Integer[]> postIncMatrix = new ArrayList<>();
-        final ArrayList<Integer[]> incMatrix = new ArrayList<>();
-        for (int p = 0; p < places.size(); p++) {
-            preIncMatrix.add(new Integer[transitions.length]);
-            postIncMatrix.add(new Integer[transitions.length]);
-            incMatrix.add(new Integer[transitions.length]);
-            ESTPlace place = places.get(p);
-            int pIn = place.getInputTrKey();
-            int pOut = place.getOutputTrKey();
-            for (int t = 0; t < transitions.length; t++) {
-                if ((pIn & getMask(t, transitions)) > 0) {//t'th transition is contained in input of p
-                    preIncMatrix.get(p)[t] = 1;
-                } else {
-                    preIncMatrix.get(p)[t] = 0;
-                }
-                if ((pOut & getMask(t, transitions)) > 0) {//t'th transition is contained in output of p
-                    postIncMatrix.get(p)[t] = 1;
-                } else {
-                    postIncMatrix.get(p)[t] = 0;
-                }
-                incMatrix.get(p)[t] = preIncMatrix.get(p)[t] - postIncMatrix.get(p)[t];
-            }
-        }
+        updateJoinNumbers(places);
         //do the LPP magic to check implicitness for each place
         //increase speed by removing implicit places for the next iteration
         int placePos = places.indexOf(currentP);
-        if (isImplicitByLPP(placePos, places, transitions, preIncMatrix, incMatrix)) {
+        if (isImplicit(placePos, places)) {
             //this place is implicit
             result.add(currentP);
+            incidenceRows.remove(currentP);
+        }
+
+        return result;
+    }
+
+
+    //every place gets a join number when it joins the models of the calls, it keeps the number as long as it is in the model of every call
+    //a place missing in a call (or removed as implicit) gets a new number when it is added back, so a place with a number below nextJoinNumber
+    //at some point in time has been in the model since then
+    private void updateJoinNumbers(ArrayList<ESTPlace> places) {
+        numCalls++;
+        for (ESTPlace place : places) {
+            IncidenceRows rows = getIncidenceRows(place);
+            if (rows.lastCall != numCalls - 1) {
+                rows.joinNumber = nextJoinNumber++;
+            }
+            rows.lastCall = numCalls;
+        }
+    }
+
+
+    //tests the place defined by placePos for implicitness, the LPP is only solved if the structural tests below do not decide it
+    //a place proven not to be implicit remembers nextJoinNumber at that time: as long as all places connected to it (see getConnectedPlaces()) have
+    //lower join numbers, they were in the model of the proof, and a place that is not implicit stays so when places are removed
+    private boolean isImplicit(int currP, ArrayList<ESTPlace> places) {
+        if (hasUncoveredInTransition(currP, places)) {
+            return false;
+        }
+        if (isDominatedByOneOrTwoPlaces(currP, places)) {
+            return true;
+        }
+        ArrayList<Integer> connectedPlaces = getConnectedPlaces(currP, places);
+        IncidenceRows currRows = getIncidenceRows(places.get(currP));
+        if (currRows.provenBefore >= 0 && haveJoinedBefore(connectedPlaces, places, currRows.provenBefore)) {
+            return false;
+        }
+        if (isImplicitByLPP(currP, connectedPlaces, places)) {
+            return true;
+        }
+        currRows.provenBefore = nextJoinNumber;
+        return false;
+    }
+
+    private boolean haveJoinedBefore(ArrayList<Integer> placePositions, ArrayList<ESTPlace> places, long joinNumber) {
+        for (int p : placePositions) {
+            if (getIncidenceRows(places.get(p)).joinNumber >= joinNumber) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //The LPP below is homogeneous apart from k >= 1 and the right-hand sides of Type 3, and only Type 3 contains Z, so with Z = Y it is feasible iff
+    //there is Y >= 0 with Y(currP) = 0 and k > 0 such that Y*incMatrix <= k*inc(currP), and every ingoing transition of currP is an ingoing transition
+    //of a place q with Y(q) > 0. The tests below decide this for the common cases without solving the LPP.
+
+    //the LPP is infeasible if an ingoing transition of the place is no ingoing transition of any other place
+    private boolean hasUncoveredInTransition(int currP, ArrayList<ESTPlace> places) {
+        ESTPlaceKey uncovered = places.get(currP).getInputTrKey();
+        for (int p = 0; p < places.size() && !uncovered.isEmpty(); p++) {
+            if (p != currP) {
+                uncovered = uncovered.andNot(places.get(p).getInputTrKey());
+            }
+        }
+        return !uncovered.isEmpty();
+    }
+
+    //the LPP is feasible (with k = 1) if Y selects a single other place or two other places, whose incidences sum up to at most inc(currP)
+    //and whose ingoing transitions cover those of currP
+    //with the increasing (in without out) and decreasing (out without in) transitions of every place, the incidence comparisons are set operations
+    //pairs are only tested if neither place covers the ingoing transitions of currP alone, and each pair is tested once
+    private boolean isDominatedByOneOrTwoPlaces(int currP, ArrayList<ESTPlace> places) {
+        ESTPlace place = places.get(currP);
+        ESTPlaceKey in = place.getInputTrKey();
+        ESTPlaceKey increasing = in.andNot(place.getOutputTrKey());
+        ESTPlaceKey decreasing = place.getOutputTrKey().andNot(in);
+        ESTPlaceKey[] remainders = new ESTPlaceKey[places.size()]; //ingoing transitions of currP that are no ingoing transitions of the place
+        for (int q = 0; q < places.size(); q++) {
+            remainders[q] = in.andNot(places.get(q).getInputTrKey());
+        }
+        for (int q1 = 0; q1 < places.size(); q1++) {
+            ESTPlace place1 = places.get(q1);
+            if (q1 == currP || remainders[q1].size() == in.size()) {
+                continue; //both places have to share an ingoing transition with currP
+            }
+            ESTPlaceKey increasing1 = place1.getInputTrKey().andNot(place1.getOutputTrKey());
+            ESTPlaceKey decreasing1 = place1.getOutputTrKey().andNot(place1.getInputTrKey());
+            if (remainders[q1].isEmpty()) {
+                //inc(q1) <= inc(currP): q1 only increases where currP does, and decreases where currP does
+                if (increasing1.andNot(increasing).isEmpty() && decreasing.andNot(decreasing1).isEmpty()) {
+                    return true;
+                }
+                continue;
+            }
+            for (int q2 = q1 + 1; q2 < places.size(); q2++) {
+                ESTPlace place2 = places.get(q2);
+                if (q2 == currP || remainders[q2].isEmpty() || !remainders[q1].andNot(place2.getInputTrKey()).isEmpty()) {
+                    continue;
+                }
+                ESTPlaceKey increasing2 = place2.getInputTrKey().andNot(place2.getOutputTrKey());
+                ESTPlaceKey decreasing2 = place2.getOutputTrKey().andNot(place2.getInputTrKey());
+                ESTPlaceKey increasingSum = increasing1.andNot(decreasing2).or(increasing2.andNot(decreasing1)); //transitions with inc(q1) + inc(q2) > 0
+                ESTPlaceKey decreasingSum = decreasing1.andNot(increasing2).or(decreasing2.andNot(increasing1)); //transitions with inc(q1) + inc(q2) < 0
+                //the sum is at most 1 where currP increases, at most 0 where currP does not change, and at most -1 where it decreases
+                if (increasing1.and(increasing2).isEmpty() && increasingSum.andNot(increasing).isEmpty() && decreasing.andNot(decreasingSum).isEmpty()) {
+                    return true;
+                }
+            }
         }
+        return false;
+    }
+
 
+    //the places in the connected component of currP in the graph of places and transitions (connected by arcs), without currP
+    //a place outside this component only occurs in the Type 2 constraints of transitions outside of it, where inc(currP) is 0,
+    //so setting its Y to 0 keeps every solution valid, and the LPP is feasible iff it is feasible on the component
+    private ArrayList<Integer> getConnectedPlaces(int currP, ArrayList<ESTPlace> places) {
+        ArrayList<Integer> result = new ArrayList<>();
+        boolean[] connected = new boolean[places.size()];
+        connected[currP] = true;
+        ESTPlaceKey connectedTransitions = places.get(currP).getInputTrKey().or(places.get(currP).getOutputTrKey());
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int p = 0; p < places.size(); p++) {
+                ESTPlaceKey pTransitions = places.get(p).getInputTrKey().or(places.get(p).getOutputTrKey());
+                if (!connected[p] && !pTransitions.and(connectedTransitions).isEmpty()) {
+                    connected[p] = true;
+                    result.add(p);
+                    connectedTransitions = connectedTransitions.or(pTransitions);
+                    changed = true;
+                }
+            }
+        }
         return result;
     }
 
 
+    //the rows of the place in the pre-incidence and incidence matrix, computed once per place: the transitions of a place never change,
+    //so the matrices of a model are its rows, and adding or removing a place only adds or removes its rows
+    private IncidenceRows getIncidenceRows(ESTPlace place) {
+        return incidenceRows.computeIfAbsent(place, p -> new IncidenceRows(p, transitions.length));
+    }
+
+
     //use an LPP solver on the given parameters to test the place defined by placePos for implicitness
-    //variables: y | z | k | x --> places.size()+places.size()+1+1
-    private boolean isImplicitByLPP(int currP, ArrayList<ESTPlace> places, String[] transitions, ArrayList<Integer[]> preIncMatrix, ArrayList<Integer[]> incMatrix) {
-        //For initial marking 0, variables k, x and reference sets Y, Z the objective functions is
-        //0*y1+0*y2+ ... 0*yn + 0*z1+0*z2+ ... 0*zn + 1*k + 0*x + 0
-        //This simplifies to 1*k
-        double[] coefficientsLinearObjectiveFunction = new double[(places.size() * 2) + 2]; //there are 2*|places| coefficients for Y, Z and 2 coefficient for k, x
-        for (int i = 0; i < (places.size() * 2); i++) {
-            coefficientsLinearObjectiveFunction[i] = 0;
-        }
-        coefficientsLinearObjectiveFunction[places.size() * 2] = 1; //k*1
+    //the LPP is restricted to the places connected to currP (see getConnectedPlaces()) and to their transitions, the constraints of all other transitions are 0<=0
+    //Y(currP)=0 is left out with its variable, Z is replaced by Y and the fixed x=0 is left out, see the comment above hasUncoveredInTransition()
+    //variables: y | k --> connectedPlaces.size()+1, where the i-th y belongs to the i-th connected place
+    private boolean isImplicitByLPP(int currP, ArrayList<Integer> connectedPlaces, ArrayList<ESTPlace> places) {
+        ESTPlaceKey connectedTransitions = places.get(currP).getInputTrKey().or(places.get(currP).getOutputTrKey());
+        for (int p : connectedPlaces) {
+            connectedTransitions = connectedTransitions.or(places.get(p).getInputTrKey()).or(places.get(p).getOutputTrKey());
+        }
+        int numY = connectedPlaces.size();
+        IncidenceRows currRows = getIncidenceRows(places.get(currP));
+        IncidenceRows[] yRows = new IncidenceRows[numY];
+        for (int i = 0; i < numY; i++) {
+            yRows[i] = getIncidenceRows(places.get(connectedPlaces.get(i)));
+        }
+
+        //For initial marking 0, variables k and reference set Y the objective function is
+        //0*y1+0*y2+ ... 0*yn + 1*k + 0
+        double[] coefficientsLinearObjectiveFunction = new double[numY + 1];
+        coefficientsLinearObjectiveFunction[numY] = 1; //k*1
         LinearObjectiveFunction objectiveFunction = new LinearObjectiveFunction(coefficientsLinearObjectiveFunction, 0);
 
-        //Add the linear constraints w.r.t. the current place currP, using k, x, Y, Z, incMatrix, preIncMatrix
         Collection<LinearConstraint> constraints = new ArrayList<>();
-        //Type 0: ensure currP is not in Y, Z, that is currP=0
-        double[] removeCurrPY = new double[(places.size() * 2) + 2];//coefficients are all 0, except for currP in Y
-        double[] removeCurrPZ = new double[(places.size() * 2) + 2];//coefficients are all 0, except for currP in Z
-        for (int i = 0; i < ((places.size() * 2) + 2); i++) {
-            removeCurrPY[i] = 0;
-            removeCurrPZ[i] = 0;
-        }
-        removeCurrPY[currP] = 1;
-        removeCurrPZ[currP + places.size()] = 1;
-        constraints.add(new LinearConstraint(removeCurrPY, Relationship.EQ, 0));
-        constraints.add(new LinearConstraint(removeCurrPZ, Relationship.EQ, 0));
-        //Type 1: Y>=Z>=0, k>=0, x=0, x<k--> x-k<=-0
-        //Y>=Z>=0 --> Z>=0 AND Y-Z>=0
-        for (int p = 0; p < places.size(); p++) {
-            double[] nonNegZ = new double[(places.size() * 2) + 2];//coefficients are all 0, except for the current z=1
-            double[] YGegZ = new double[(places.size() * 2) + 2];//coefficients are all 0, except for the current y=1 and z=-1
-            for (int i = 0; i < ((places.size() * 2) + 2); i++) {//put everything to 0 by default
-                nonNegZ[i] = 0;
-                YGegZ[i] = 0;
-            }
-            nonNegZ[places.size() + p] = 1; //z=1
-            YGegZ[p] = 1; //y=1
-            YGegZ[places.size() + p] = -1; //z=-1
-            constraints.add(new LinearConstraint(nonNegZ, Relationship.GEQ, 0));//1*z>=0
-            constraints.add(new LinearConstraint(YGegZ, Relationship.GEQ, 0));//1*y-1*z>=0
-        }
-        //k>=0, x=0, x-k<=-1
-        double[] nonNegk = new double[(places.size() * 2) + 2];//coefficients are all 0, except for k=1
-        double[] zerox = new double[(places.size() * 2) + 2];//coefficients are all 0, except for x=1
-        double[] xSmallerk = new double[(places.size() * 2) + 2];//coefficients are all 0, except for x=1, k=-1
-        for (int i = 0; i < ((places.size() * 2) + 2); i++) {
-            nonNegk[i] = 0;
-            zerox[i] = 0;
-        }
-        nonNegk[places.size() * 2] = 1;
-        zerox[(places.size() * 2) + 1] = 1;
-        xSmallerk[places.size() * 2] = -1; //k=-1
-        xSmallerk[(places.size() * 2) + 1] = 1; //x=1
-        constraints.add(new LinearConstraint(xSmallerk, Relationship.LEQ, -1));//1*x-1*k <=-1
-        constraints.add(new LinearConstraint(nonNegk, Relationship.GEQ, 0));//1*k>=0
-        constraints.add(new LinearConstraint(zerox, Relationship.EQ, 0));//1*x=0
-
-        //Type 2: Y*incMatrix<=k*inc(currP) ---> Y*incMatrix - k*inc(currP) <=0;
-        for (int t = 0; t < transitions.length; t++) {//add one constraint for each transition
-            double[] coefficients = new double[(places.size() * 2) + 2];//coefficients are based on incMatrix
-            for (int p = 0; p < places.size(); p++) {
-                coefficients[p] = incMatrix.get(p)[t]; //find the coefficient for Y each pair (p,t)
-                coefficients[p + places.size()] = 0; //Z is put to 0
+        //Type 1: Y>=0, k>=1 (from x=0 and x-k<=-1), Y>=0 is passed to the solver as NonNegativeConstraint instead of a row per place
+        double[] kAtLeastOne = new double[numY + 1];
+        kAtLeastOne[numY] = 1;
+        constraints.add(new LinearConstraint(kAtLeastOne, Relationship.GEQ, 1));//1*k>=1
+
+        //Type 2: Y*incMatrix<=k*inc(currP) ---> Y*incMatrix - k*inc(currP) <=0, for all connected transitions
+        for (int t = connectedTransitions.nextPosition(0); t >= 0; t = connectedTransitions.nextPosition(t + 1)) {
+            double[] coefficients = new double[numY + 1];
+            for (int i = 0; i < numY; i++) {
+                coefficients[i] = yRows[i].inc[t];
             }
-            //coefficient for k is -incMatrix[currP, t]
-            coefficients[places.size() * 2] = incMatrix.get(currP)[t] * (-1);
-            //coefficient for x is 0;
-            coefficients[(places.size() * 2) + 1] = 0;
-            //the sum should be <= inc(currP,t)
+            coefficients[numY] = currRows.inc[t] * (-1);
             constraints.add(new LinearConstraint(coefficients, Relationship.LEQ, 0));
         }
 
-        //Type 3: forall t with currP in pre(t): Z*pre(q, t) + x >= k *pre(currP, t), for q in P/{currP}
-        // --> Z*pre(q, t) + x - k* pre(currP, t) >=0
+        //Type 3: forall t with currP in pre(t): Y*pre(q, t) >= pre(currP, t), for q in P/{currP}
         for (int t = 0; t < transitions.length; t++) {
-            if (preIncMatrix.get(currP)[t] == 1) {//for all t with currP in pre(t)
-                double[] coefficients = new double[(places.size() * 2) + 2];
-                for (int p = 0; p < places.size(); p++) {
-                    coefficients[p] = 0; //coefficients of Y=0
-                    coefficients[p + places.size()] = preIncMatrix.get(p)[t]; //coefficients of Z = pre(p,t)
+            if (currRows.pre[t] == 1) {
+                double[] coefficients = new double[numY + 1];
+                for (int i = 0; i < numY; i++) {
+                    coefficients[i] = yRows[i].pre[t];
                 }
-                coefficients[(places.size() * 2) + 1] = 1;//coefficient of x=1
-                constraints.add(new LinearConstraint(coefficients, Relationship.GEQ, preIncMatrix.get(currP)[t]));
+                constraints.add(new LinearConstraint(coefficients, Relationship.GEQ, currRows.pre[t]));
             }
         }
 
         LinearOptimizer solver = new SimplexSolver();
         try {
-            solver.optimize(objectiveFunction, new LinearConstraintSet(constraints));
+            solver.optimize(objectiveFunction, new LinearConstraintSet(constraints), new NonNegativeConstraint(true));
         } catch (NoFeasibleSolutionException NFSE) {
             return false;
         }
 
         return true;
     }
+
+
+    private static class IncidenceRows {
+        private final int[] pre; //1 if the transition is an ingoing transition of the place
+        private final int[] inc; //pre minus post
+        private long joinNumber; //see updateJoinNumbers()
+        private int lastCall = -1; //the last call with this place in its model
+        private long provenBefore = -1; //nextJoinNumber when the place was last proven not to be implicit, -1 if never, see isImplicit()
+
+        private IncidenceRows(ESTPlace place, int numTransitions) {
+            pre = new int[numTransitions];
+            inc = new int[numTransitions];
+            ESTPlaceKey pIn = place.getInputTrKey();
+            ESTPlaceKey pOut = place.getOutputTrKey();
+            for (int t = 0; t < numTransitions; t++) {
+                pre[t] = pIn.contains(t) ? 1 : 0;
+                inc[t] = pre[t] - (pOut.contains(t) ? 1 : 0);
+            }
+        }
+    }
 }
@@ -3,6 +3,7 @@ package org.processmining.est2miner.algorithms.placecombination;
 import org.processmining.est2miner.models.coreobjects.ESTLog;
 import org.processmining.est2miner.models.coreobjects.ESTPlace;
 import org.processmining.est2miner.models.coreobjects.ESTProcessModel;
+import org.processmining.est2miner.models.coreobjects.ESTVariantVector;
 import org.processmining.est2miner.models.PlugInStatistics;
 
 import java.util.ArrayList;
@@ -11,6 +12,8 @@ public class BFSDeltaCombinator {
     private final double delta;
     private final int tauAbsolute;
     private final int[] traceCounts;
+    private final int[] wordTraceCounts; //sum of the trace counts of every 64 variants, see ESTVariantVector
+    private final boolean unitTraceCounts; //every variant occurs once, fitting traces can be counted by popcount
     private int currentDepth;
     private final int maxDepth;
     private final int adaptiveDeltaSteepness;
@@ -20,6 +23,15 @@ public class BFSDeltaCombinator {
         this.tauAbsolute = tauAbsolute;
         this.delta = delta;
         this.traceCounts = traceCounts;
+        this.wordTraceCounts = ESTVariantVector.computeWordWeights(traceCounts);
+        boolean unitTraceCounts = true;
+        for (int traceCount : traceCounts) {
+            if (traceCount != 1) {
+                unitTraceCounts = false;
+                break;
+            }
+        }
+        this.unitTraceCounts = unitTraceCounts;
         this.currentDepth = 2;
         this.maxDepth = maxDepth;
         this.log = log;
@@ -31,10 +43,10 @@ public class BFSDeltaCombinator {
     // Returns -1 if generally impossible, 0 if currently impossible, 1 if possible (with resulting vector)
 
     //Note: statistics are changed, where the places are actually discarded/added/etc (discovery)
-    public Object[] combinePlace(boolean[] pMVariantVector, ESTPlace place) {
-        boolean[] placeVariantVector = place.getVariantVector();
+    public Object[] combinePlace(ESTVariantVector pMVariantVector, ESTPlace place) {
+        ESTVariantVector placeVariantVector = place.getVariantVector();
         int previousFittingTraces = countFittingTraces(pMVariantVector);
-        boolean[] variantVectorIfCombined = computeVariantVectorIfCombined(pMVariantVector, placeVariantVector);
+        ESTVariantVector variantVectorIfCombined = computeVariantVectorIfCombined(pMVariantVector, placeVariantVector);
         int remainingFittingTraces = countFittingTraces(variantVectorIfCombined);
         if (remainingFittingTraces < tauAbsolute) {// adding the place reduces the global fitness below the threshold tau, discard
             return new Object[]{-1, variantVectorIfCombined};
@@ -52,26 +64,17 @@ public class BFSDeltaCombinator {
 
 
     //computes the variantVector resulting from adding the new VV to the current VV (and - gate)
-    private boolean[] computeVariantVectorIfCombined(boolean[] currentVV, boolean[] addedVV) {
-        boolean[] resultVV = currentVV.clone();
-        for (int i = 0; i < addedVV.length; i++) {
-            if (!addedVV[i]) {
-                resultVV[i] = false;
-            }
-        }
-        return resultVV;
+    private ESTVariantVector computeVariantVectorIfCombined(ESTVariantVector currentVV, ESTVariantVector addedVV) {
+        return currentVV.and(addedVV);
     }
 
 
     //use traceCounts to get the actual number of traces for each variant
-    public int countFittingTraces(boolean[] traceVector) {
-        int count = 0;
-        for (int i = 0; i < traceVector.length; i++) {
-            if (traceVector[i]) {
-                count = count + this.traceCounts[i];
-            }
+    public int countFittingTraces(ESTVariantVector traceVector) {
+        if (unitTraceCounts) {
+            return traceVector.cardinality();
         }
-        return count;
+        return traceVector.weightedCardinality(this.traceCounts, this.wordTraceCounts);
     }
 
     public int getCurrentDepth() {
@@ -85,7 +88,7 @@ public class BFSDeltaCombinator {
     //revisits the PRE-SORTED queue of potential places ONCE and trys adding them to model
     public ESTProcessModel revisitQueueOfPlaces(ESTProcessModel pM) {
         ArrayList<ESTPlace> currentPotentialPlaces = pM.getPotentialPlaces();
-        boolean[] currentPMVariantVector = pM.getVariantVector();
+        ESTVariantVector currentPMVariantVector = pM.getVariantVector();
         pM.setPotentialPlaces(new ArrayList<>());
         int replayableBeforeAdding = countFittingTraces(currentPMVariantVector);
         while (!currentPotentialPlaces.isEmpty()) {
@@ -128,7 +131,7 @@ public class BFSDeltaCombinator {
 
     //sum of place transitions
     private int getPlaceDepth(ESTPlace place) {
-        return (Integer.bitCount(place.getInputTrKey()) + Integer.bitCount(place.getOutputTrKey()));
+        return place.getInputTrKey().size() + place.getOutputTrKey().size();
     }
 
     public int getMaxDepth() {
@@ -0,0 +1,180 @@
+package org.processmining.est2miner.algorithms.placeevaluation;
+
+import org.processmining.est2miner.models.coreobjects.ESTCompiledPartialOrder;
+
+//replays a single place on compiled partial orders, following the phases of LpoESTFireValidator (forwards, backwards, flow)
+//the place is given by the transitions producing into and consuming from it, indexed like the (ingoing) transitions array
+//one validator can be reused for any number of partial orders, the marking buffer is allocated once
+//not thread-safe, use one validator per thread
+public class LpoESTCompiledValidator {
+    private final boolean[] produces; //transitions in the input of the place
+    private final boolean[] consumes; //transitions in the output of the place
+    private int[] marking; //local marking per event
+
+    private boolean valid;
+    private boolean branched;
+    private boolean overfed;
+    private boolean underfed;
+
+    public LpoESTCompiledValidator(boolean[] produces, boolean[] consumes, int maxPartialOrderSize) {
+        this.produces = produces;
+        this.consumes = consumes;
+        this.marking = new int[maxPartialOrderSize];
+    }
+
+    public eST2PlaceEvaluator.FitnessStatus validate(ESTCompiledPartialOrder partialOrder) {
+        if (partialOrder.isChain()) {
+            return validateChain(partialOrder);
+        }
+        if (marking.length < partialOrder.size()) {
+            marking = new int[partialOrder.size()];
+        }
+        valid = true;
+        branched = false;
+        overfed = false;
+        underfed = false;
+
+        fireForwards(partialOrder);
+        if (underfed || valid) {
+            return eST2PlaceEvaluator.getStatus(overfed, underfed);
+        }
+
+        // Resetting the branched value to false such that we can check the value for the backwards firing
+        valid = true;
+        branched = false;
+        fireBackwards(partialOrder);
+        if (underfed || valid) {
+            return eST2PlaceEvaluator.getStatus(overfed, underfed);
+        }
+
+        // Rest with flow
+        valid = checkFlow(partialOrder);
+        underfed = !valid;
+
+        return eST2PlaceEvaluator.getStatus(overfed, underfed);
+    }
+
+    //on a chain all tokens are passed on to the single successor, so the local marking is a running sum and the forward phase always decides
+    private eST2PlaceEvaluator.FitnessStatus validateChain(ESTCompiledPartialOrder partialOrder) {
+        int tokens = 0;
+        boolean missingToken = false;
+        for (int pos = 0; pos < partialOrder.size(); pos++) {
+            int activity = partialOrder.getOrderedActivity(pos);
+            if (consumes[activity]) {
+                tokens--;
+                if (tokens < 0) {
+                    missingToken = true;
+                }
+            }
+            if (produces[activity]) {
+                tokens++;
+            }
+        }
+
+        return eST2PlaceEvaluator.getStatus(tokens > 0, tokens < 0 || missingToken);
+    }
+
+    private void fireForwards(ESTCompiledPartialOrder partialOrder) {
+        int n = partialOrder.size();
+        for (int i = 0; i < n; i++) {
+            marking[i] = 0;
+        }
+
+        for (int pos = 0; pos < n; pos++) {
+            int event = partialOrder.getOrderedEvent(pos);
+            int activity = partialOrder.getActivity(event);
+            if (consumes[activity]) {
+                marking[event]--;
+                if (marking[event] < 0) {
+                    valid = false;
+                }
+            }
+            if (produces[activity]) {
+                marking[event]++;
+            }
+
+            // push to first later and check for complex places
+            int successorCount = partialOrder.getSuccessorCount(event);
+            if (successorCount > 0) {
+                if (successorCount > 1 && marking[event] > 0) {
+                    branched = true;
+                }
+                marking[partialOrder.getFirstSuccessor(event)] += marking[event];
+            }
+        }
+
+        int last = partialOrder.getOrderedEvent(n - 1);
+        overfed = marking[last] > 0;
+        underfed = (marking[last] < 0) || (!valid && !branched);
+    }
+
+    private void fireBackwards(ESTCompiledPartialOrder partialOrder) {
+        int n = partialOrder.size();
+        for (int i = 0; i < n; i++) {
+            marking[i] = 0;
+        }
+
+        for (int pos = n - 1; pos >= 0; pos--) {
+            int event = partialOrder.getOrderedEvent(pos);
+            int activity = partialOrder.getActivity(event);
+            if (produces[activity]) {
+                marking[event]--;
+                if (marking[event] < 0) {
+                    valid = false;
+                }
+            }
+            if (consumes[activity]) {
+                marking[event]++;
+            }
+
+            // push to first earlier and check for complex places
+            int predecessorCount = partialOrder.getPredecessorCount(event);
+            if (predecessorCount > 0) {
+                if (predecessorCount > 1 && marking[event] > 0) {
+                    branched = true;
+                }
+                marking[partialOrder.getFirstPredecessor(event)] += marking[event];
+            }
+        }
+
+        underfed |= (!valid && !branched);
+    }
+
+    //same network as LpoESTFlowValidator: every event is split into a start and an end node
+    private boolean checkFlow(ESTCompiledPartialOrder partialOrder) {
+        int n = partialOrder.size() * 2 + 2;
+        int source = 0;
+        int sink = n - 1;
+
+        MaxFlowDinic network = MaxFlowDinic.forCurrentThread();
+        network.reset(n);
+
+        int need = 0;
+        for (int i = 0; i < partialOrder.size(); i++) {
+            network.addUnbounded(eventStart(i), eventEnd(i));
+
+            int activity = partialOrder.getActivity(i);
+            if (produces[activity]) {
+                network.addCapValue(source, eventEnd(i), 1);
+            }
+            if (consumes[activity]) {
+                network.addCapValue(eventStart(i), sink, 1);
+                need++;
+            }
+            int end = partialOrder.getSuccessorStart(i) + partialOrder.getSuccessorCount(i);
+            for (int k = partialOrder.getSuccessorStart(i); k < end; k++) {
+                network.addUnbounded(eventEnd(i), eventStart(partialOrder.getSuccessor(k)));
+            }
+        }
+
+        return need == network.maxFlow(source, sink);
+    }
+
+    private int eventStart(int eventIndex) {
+        return eventIndex * 2 + 1;
+    }
+
+    private int eventEnd(int eventIndex) {
+        return eventIndex * 2 + 2;
+    }
+}
@@ -30,39 +30,38 @@ public class LpoESTFlowValidator extends LpoValidator {
         int source = 0;
         int sink = n - 1;
 
-        MaxFlowPreflowN3 network = new MaxFlowPreflowN3(n);
+        MaxFlowDinic network = MaxFlowDinic.forCurrentThread();
+        network.reset(n);
 
+        int need = 0;
         for (int i = 0; i < partialOrderTrace.size(); i++) {
-            network.setUnbounded(eventStart(i), eventEnd(i));
+            network.addUnbounded(eventStart(i), eventEnd(i));
 
             String activity = partialOrderTrace.get(i);
             if (!eventToTransition.containsKey(activity)) {
                 if (initialMarkingCount.containsKey(place)) {
-                    network.setCapValue(source, eventEnd(i), initialMarkingCount.get(place));
+                    network.addCapValue(source, eventEnd(i), initialMarkingCount.get(place));
                 }
             } else {
                 for (PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode> outEdge : petrinet.getOutEdges(eventToTransition.get(activity))) {
                     Place postPlace = (Place) outEdge.getTarget();
                     if (postPlace == place) {
-                        network.setCapValue(source, eventEnd(i), getWeight(outEdge));
+                        network.addCapValue(source, eventEnd(i), getWeight(outEdge));
                     }
                 }
                 for (PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode> inEdge : petrinet.getInEdges(eventToTransition.get(activity))) {
                     Place prePlace = (Place) inEdge.getSource();
                     if (prePlace == place) {
-                        network.setCapValue(eventStart(i), sink, getWeight(inEdge));
+                        network.addCapValue(eventStart(i), sink, getWeight(inEdge));
+                        need += getWeight(inEdge);
                     }
                 }
             }
             for (Integer successorIndex : partialOrderTrace.getSuccessorIndices(i)) {
-                network.setUnbounded(eventEnd(i), eventStart(successorIndex));
+                network.addUnbounded(eventEnd(i), eventStart(successorIndex));
             }
         }
 
-        int need = 0;
-        for (int i = 0; i < n; i++) {
-            need += network.getCapValue(i, sink);
-        }
         int f = network.maxFlow(source, sink);
         LOGGER.log(Level.FINE, "flow " + place + " " + f);
         LOGGER.log(Level.FINE, "flow " + place + " " + need);
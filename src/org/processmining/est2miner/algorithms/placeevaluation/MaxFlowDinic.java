@@ -0,0 +1,135 @@
+package org.processmining.est2miner.algorithms.placeevaluation;
+
+import java.util.Arrays;
+
+//sparse max flow solver (Dinic) on adjacency lists, replaces the dense MaxFlowPreflowN3 for the flow checks
+//the buffers only grow, so one instance can be reset and reused for any number of networks
+//not thread-safe, use forCurrentThread() to obtain the instance of the calling thread
+public class MaxFlowDinic {
+    public static final int UNBOUNDED = 20000;
+
+    private static final ThreadLocal<MaxFlowDinic> PER_THREAD = ThreadLocal.withInitial(MaxFlowDinic::new);
+
+    private int n;
+    private int[] head = new int[0]; //first edge of every node, -1 if none
+    private int[] level = new int[0];
+    private int[] iter = new int[0]; //current edge of every node during a blocking flow
+    private int[] queue = new int[0];
+    private int[] path = new int[0]; //edges of the current augmenting path
+
+    //edges are stored in pairs, the residual edge of e is e^1
+    private int edgeCount;
+    private int[] target = new int[0];
+    private int[] residual = new int[0];
+    private int[] next = new int[0];
+
+    public static MaxFlowDinic forCurrentThread() {
+        return PER_THREAD.get();
+    }
+
+    //removes all edges and prepares a network with n nodes
+    public void reset(int n) {
+        this.n = n;
+        if (head.length < n) {
+            head = new int[n];
+            level = new int[n];
+            iter = new int[n];
+            queue = new int[n];
+            path = new int[n];
+        }
+        Arrays.fill(head, 0, n, -1);
+        edgeCount = 0;
+    }
+
+    public void addCapValue(int i, int j, int value) {
+        if (edgeCount + 2 > target.length) {
+            int size = Math.max(16, target.length * 2);
+            target = Arrays.copyOf(target, size);
+            residual = Arrays.copyOf(residual, size);
+            next = Arrays.copyOf(next, size);
+        }
+        addEdge(i, j, value);
+        addEdge(j, i, 0);
+    }
+
+    public void addUnbounded(int i, int j) {
+        addCapValue(i, j, UNBOUNDED);
+    }
+
+    private void addEdge(int from, int to, int value) {
+        target[edgeCount] = to;
+        residual[edgeCount] = value;
+        next[edgeCount] = head[from];
+        head[from] = edgeCount;
+        edgeCount++;
+    }
+
+    public int maxFlow(int s, int t) {
+        int flow = 0;
+        while (buildLevels(s, t)) {
+            System.arraycopy(head, 0, iter, 0, n);
+            flow += blockingFlow(s, t);
+        }
+        return flow;
+    }
+
+    //bfs on the residual network, returns whether the sink is still reachable
+    private boolean buildLevels(int s, int t) {
+        Arrays.fill(level, 0, n, -1);
+        level[s] = 0;
+        int first = 0;
+        int last = 0;
+        queue[last++] = s;
+        while (first < last) {
+            int u = queue[first++];
+            for (int e = head[u]; e != -1; e = next[e]) {
+                if (residual[e] > 0 && level[target[e]] < 0) {
+                    level[target[e]] = level[u] + 1;
+                    queue[last++] = target[e];
+                }
+            }
+        }
+        return level[t] >= 0;
+    }
+
+    //iterative dfs along the level graph, dead ends are removed by resetting their level
+    private int blockingFlow(int s, int t) {
+        int flow = 0;
+        int depth = 0;
+        int u = s;
+        while (true) {
+            if (u == t) {
+                int df = Integer.MAX_VALUE;
+                for (int k = 0; k < depth; k++) {
+                    df = Math.min(df, residual[path[k]]);
+                }
+                for (int k = 0; k < depth; k++) {
+                    residual[path[k]] -= df;
+                    residual[path[k] ^ 1] += df;
+                }
+                flow += df;
+                depth = 0;
+                u = s;
+                continue;
+            }
+
+            int e = iter[u];
+            while (e != -1 && (residual[e] == 0 || level[target[e]] != level[u] + 1)) {
+                e = next[e];
+            }
+            iter[u] = e;
+
+            if (e != -1) {
+                path[depth++] = e;
+                u = target[e];
+            } else {
+                if (u == s) {
+                    return flow;
+                }
+                level[u] = -1;
+                depth--;
+                u = target[path[depth] ^ 1];
+            }
+        }
+    }
+}
@@ -2,34 +2,82 @@ package org.processmining.est2miner.algorithms.placeevaluation;
 
 import org.processmining.est2miner.models.coreobjects.*;
 import org.processmining.est2miner.models.PlugInStatistics;
-import org.processmining.est2miner.models.preprocessing.CountedPLog;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 
 public class PlaceEvaluator {
-    private final ESTPartialOrderLog variantLog;
+    private final ESTCompiledPartialOrder[] variants;
+    private final int[] variantCounts;
+    private final int[] variantOrder; //variant indices by descending trace count
+    private final boolean[] balanceDecides; //variants whose final replay marking is the token balance of the place
+    private final VariantProjections projections; //variants with the same projection onto the transitions of a place are replayed once
+    private final ESTVariantTrie chainTrie; //the chain variants are replayed on their prefix trie, null if the log has no chain variants
+    private final int maxVariantSize;
+    private final int numTransitions;
     private final double threshold;
-    private final HashMap<ESTPartialOrder, Integer> traceCounts;
+    private final ESTLog log;
 
-    public PlaceEvaluator(final CountedPLog countedPLog, final double threshold) {
+    public PlaceEvaluator(final ESTLog log, final double threshold) {
         this.threshold = threshold;
-        variantLog = countedPLog.getVariantLog();
-        traceCounts = countedPLog.getPTraceCounts();
+        this.log = log;
+        variants = log.getCompiledVariants();
+        variantCounts = log.getVariantCounts();
+        maxVariantSize = log.getMaxVariantSize();
+        numTransitions = log.getInTransitions().length;
+        variantOrder = computeVariantOrder(variantCounts);
+        balanceDecides = new boolean[variants.length];
+        for (int v = 0; v < variants.length; v++) {
+            balanceDecides[v] = variants[v].isSingleSink();
+        }
+        projections = new VariantProjections(variants, numTransitions);
+        chainTrie = log.getChainTrie().getNumVariants() > 0 ? log.getChainTrie() : null;
+    }
+
+    //frequent variants first, so the replay of a place can stop after few variants if they already decide its status
+    private static int[] computeVariantOrder(int[] variantCounts) {
+        return IntStream.range(0, variantCounts.length).boxed()
+                .sorted((v1, v2) -> Integer.compare(variantCounts[v2], variantCounts[v1]))
+                .mapToInt(Integer::intValue).toArray();
     }
 
-    public ESTPlaceStatus testPlace(HashSet<String> ingoingTransitions, HashSet<String> outgoingTransitions, ESTPlace place) {
+    public ESTPlaceStatus testPlace(ESTPlace place) {
         long startTime = System.currentTimeMillis();
 
         PlaceLogReplayResult placeLogReplayResult;
         try {
-            placeLogReplayResult = eST2PlaceEvaluator.evaluatePlaceWithLog(variantLog, traceCounts, ingoingTransitions, outgoingTransitions, place);
+            boolean[] produces = new boolean[numTransitions];
+            boolean[] consumes = new boolean[numTransitions];
+            for (int i = 0; i < numTransitions; i++) {
+                produces[i] = place.getInputTrKey().contains(i);
+                consumes[i] = place.getOutputTrKey().contains(i);
+            }
+            eST2PlaceEvaluator.FitnessStatus[] knownStatus = prescreenVariants(produces, consumes);
+            VariantProjections.Grouping grouping = isComplete(knownStatus) ? null : projections.getGrouping(place.getInputTrKey().or(place.getOutputTrKey()));
+            //a child in the candidate tree adds a single transition to its parent, only the variants containing this transition can replay differently
+            ESTPlace parent = place.getParent();
+            int addedTransition = parent != null && parent.hasReplayProfile() ? place.getAddedTransition(parent) : -1;
+            if (addedTransition >= 0) {
+                placeLogReplayResult = eST2PlaceEvaluator.evaluatePlaceWithLog(variants, variantCounts, maxVariantSize, produces, consumes, place, parent, log.getTransitionOccurrences(addedTransition), knownStatus, grouping, variantOrder, threshold);
+            } else {
+                placeLogReplayResult = eST2PlaceEvaluator.evaluatePlaceWithLog(variants, variantCounts, maxVariantSize, produces, consumes, place, null, null, knownStatus, grouping, variantOrder, threshold);
+            }
+            place.clearParent();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
 
-        // evaluate results of replay of the log
+        ESTPlaceStatus result = getPlaceStatus(placeLogReplayResult);
+        PlugInStatistics.getInstance().incTimeEval(System.currentTimeMillis() - startTime);
+
+        return result;
+    }
+
+    //derives the status of a place from the results of its replay on the log
+    private ESTPlaceStatus getPlaceStatus(PlaceLogReplayResult placeLogReplayResult) {
         ESTPlaceStatus result = ESTPlaceStatus.UNFIT;
         if (placeLogReplayResult.getNumbOfTraces() > 0) {//if place is never activated, it is useless and thus unfitting
             if ((placeLogReplayResult.getFittingFraction() >= threshold)) {//enough evidence that place is fit
@@ -48,7 +96,6 @@ public class PlaceEvaluator {
             }
         }
 
-        PlugInStatistics.getInstance().incTimeEval(System.currentTimeMillis() - startTime);
         if (result == ESTPlaceStatus.FIT) {
             PlugInStatistics.getInstance().incNumFitting();
         } else {//malfed, overfed, underfed or unfit
@@ -57,4 +104,72 @@ public class PlaceEvaluator {
 
         return result;
     }
+
+    //the token balance of the place (produced minus consumed tokens) on a variant is the final marking of its replay, if balanceDecides holds
+    //a negative balance makes the place underfed but not overfed, and without consuming events the balance alone decides between overfed and fitting
+    //the balances of all variants are summed up from the per transition counts of the log, the status is null for variants that still need a replay
+    //with a prefix trie, the chains are replayed on the trie at once: they are underfed if a prefix is, and overfed if their balance is positive
+    private eST2PlaceEvaluator.FitnessStatus[] prescreenVariants(boolean[] produces, boolean[] consumes) {
+        int[] produced = new int[variants.length];
+        int[] consumed = new int[variants.length];
+        for (int t = 0; t < numTransitions; t++) {
+            if (produces[t]) {
+                addCounts(produced, log.getTransitionCounts(t));
+            }
+            if (consumes[t]) {
+                addCounts(consumed, log.getTransitionCounts(t));
+            }
+        }
+
+        boolean[] underfedChains = null;
+        if (chainTrie != null) {
+            underfedChains = new boolean[variants.length];
+            chainTrie.markUnderfedVariants(produces, consumes, underfedChains);
+        }
+
+        eST2PlaceEvaluator.FitnessStatus[] result = new eST2PlaceEvaluator.FitnessStatus[variants.length];
+        for (int v = 0; v < variants.length; v++) {
+            if (!balanceDecides[v]) {
+                continue;
+            }
+            if (underfedChains != null && variants[v].isChain()) {
+                result[v] = eST2PlaceEvaluator.getStatus(produced[v] > consumed[v], underfedChains[v]);
+            } else if (produced[v] < consumed[v]) {
+                result[v] = eST2PlaceEvaluator.FitnessStatus.UNDERFED;
+            } else if (consumed[v] == 0) {
+                result[v] = produced[v] > 0 ? eST2PlaceEvaluator.FitnessStatus.OVERFED : eST2PlaceEvaluator.FitnessStatus.Fitting;
+            }
+        }
+
+        return result;
+    }
+
+    //whether no variant needs a replay, then the place does not need a projection grouping either
+    private static boolean isComplete(eST2PlaceEvaluator.FitnessStatus[] knownStatus) {
+        for (eST2PlaceEvaluator.FitnessStatus status : knownStatus) {
+            if (status == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void addCounts(int[] sums, int[] counts) {
+        for (int v = 0; v < sums.length; v++) {
+            sums[v] += counts[v];
+        }
+    }
+
+    //evaluates the given places concurrently on the given pool, the i-th status belongs to the i-th place
+    //the evaluation of a place does not depend on any other place, so the results equal those of sequential testPlace() calls
+    public ESTPlaceStatus[] testPlaces(ArrayList<ESTPlace> places, ForkJoinPool pool) throws InterruptedException {
+        ESTPlaceStatus[] results = new ESTPlaceStatus[places.size()];
+        try {
+            pool.submit(() -> IntStream.range(0, places.size()).parallel().forEach(i -> results[i] = testPlace(places.get(i)))).get();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+
+        return results;
+    }
 }
@@ -7,7 +7,12 @@ public class PlaceLogReplayResult {
     double overfedFraction;
 
     public PlaceLogReplayResult(int overfedCount, int underfedCount, int overAndUnderfedCount, int fittingCount) {
-        numbOfTraces = overfedCount + underfedCount + overAndUnderfedCount + fittingCount;
+        this(overfedCount, underfedCount, overAndUnderfedCount, fittingCount, overfedCount + underfedCount + overAndUnderfedCount + fittingCount);
+    }
+
+    //for a replay that stopped early, the fractions refer to all numbOfTraces traces, including those that were not replayed
+    public PlaceLogReplayResult(int overfedCount, int underfedCount, int overAndUnderfedCount, int fittingCount, int numbOfTraces) {
+        this.numbOfTraces = numbOfTraces;
         fittingFraction = (double) fittingCount / numbOfTraces;
         underfedFraction = (double) (underfedCount + overAndUnderfedCount) / numbOfTraces;
         overfedFraction = (double) (overfedCount + overAndUnderfedCount) / numbOfTraces;
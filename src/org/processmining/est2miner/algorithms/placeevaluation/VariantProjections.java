@@ -0,0 +1,175 @@
+package org.processmining.est2miner.algorithms.placeevaluation;
+
+import org.processmining.est2miner.models.coreobjects.ESTCompiledPartialOrder;
+import org.processmining.est2miner.models.coreobjects.ESTPlaceKey;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//groups the variants by their projection onto a set of transitions: the events of these transitions together with their precedences
+//the replay of a place on a chain is a running sum over the projected events, so all chains of a group have the same status
+//on the other variants, the replay of a place is exact (and thus only depends on the projection) unless the place is overfed,
+//the first and backward phases of LpoESTCompiledValidator then depend on where the surplus tokens are passed to
+//chains and other variants are never in the same group, variants whose replay does not pass all tokens to the last event are not grouped
+//the groupings of recently used transition sets are cached, all methods are thread-safe
+public class VariantProjections {
+    private static final int CACHE_BUDGET = 1 << 22; //number of group ids kept in the cache over all transition sets
+
+    private final ESTCompiledPartialOrder[] variants;
+    private final ESTPlaceKey[] variantActivities; //the transitions occurring in every variant
+    private final Map<ESTPlaceKey, Grouping> cache;
+
+    public VariantProjections(ESTCompiledPartialOrder[] variants, int numTransitions) {
+        this.variants = variants;
+        this.variantActivities = new ESTPlaceKey[variants.length];
+        for (int v = 0; v < variants.length; v++) {
+            ESTPlaceKey activities = ESTPlaceKey.empty(numTransitions);
+            for (int e = 0; e < variants[v].size(); e++) {
+                activities = activities.with(variants[v].getActivity(e));
+            }
+            variantActivities[v] = activities;
+        }
+
+        int maxCacheSize = Math.max(1, CACHE_BUDGET / Math.max(1, variants.length));
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<ESTPlaceKey, Grouping>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ESTPlaceKey, Grouping> eldest) {
+                return size() > maxCacheSize;
+            }
+        });
+    }
+
+    //returns the grouping of the variants by their projection onto the given transitions
+    public Grouping getGrouping(ESTPlaceKey transitions) {
+        Grouping result = cache.get(transitions);
+        if (result == null) {
+            result = computeGrouping(transitions);
+            cache.put(transitions, result);
+        }
+        return result;
+    }
+
+    private Grouping computeGrouping(ESTPlaceKey transitions) {
+        int[] groups = new int[variants.length];
+        HashMap<ProjectionKey, Integer> groupIds = new HashMap<>();
+        ArrayList<Boolean> chainGroups = new ArrayList<>();
+        for (int v = 0; v < variants.length; v++) {
+            if (!variants[v].isSingleSink()) {
+                groups[v] = -1;
+                continue;
+            }
+            boolean chain = variants[v].isChain();
+            ProjectionKey key = variantActivities[v].and(transitions).isEmpty() ? ProjectionKey.EMPTY : computeProjectionKey(variants[v], transitions);
+            Integer group = groupIds.putIfAbsent(chain ? key.asChain() : key, groupIds.size());
+            if (group == null) {
+                group = groupIds.size() - 1;
+                chainGroups.add(chain);
+            }
+            groups[v] = group;
+        }
+        boolean[] chainGroupArray = new boolean[chainGroups.size()];
+        for (int g = 0; g < chainGroupArray.length; g++) {
+            chainGroupArray[g] = chainGroups.get(g);
+        }
+        return new Grouping(groups, chainGroupArray);
+    }
+
+    //lists the projected events in the total ordering of the variant, each with its transition and the projected events preceding it
+    private static ProjectionKey computeProjectionKey(ESTCompiledPartialOrder variant, ESTPlaceKey transitions) {
+        int n = variant.size();
+        int[] positions = new int[n]; //position of every projected event in the projection, -1 for the other events
+        int numProjected = 0;
+        for (int pos = 0; pos < n; pos++) {
+            int event = variant.getOrderedEvent(pos);
+            positions[event] = transitions.contains(variant.getActivity(event)) ? numProjected++ : -1;
+        }
+
+        int numWords = (numProjected + 63) >>> 6;
+        long[][] earlier = new long[n][numWords]; //projected events preceding every event
+        int[] key = new int[numProjected * (1 + 2 * numWords)];
+        int k = 0;
+        for (int pos = 0; pos < n; pos++) {
+            int event = variant.getOrderedEvent(pos);
+            if (positions[event] >= 0) {
+                key[k++] = variant.getActivity(event);
+                for (int w = 0; w < numWords; w++) {
+                    key[k++] = (int) earlier[event][w];
+                    key[k++] = (int) (earlier[event][w] >>> 32);
+                }
+            }
+            int end = variant.getSuccessorStart(event) + variant.getSuccessorCount(event);
+            for (int s = variant.getSuccessorStart(event); s < end; s++) {
+                long[] successorEarlier = earlier[variant.getSuccessor(s)];
+                for (int w = 0; w < numWords; w++) {
+                    successorEarlier[w] |= earlier[event][w];
+                }
+                if (positions[event] >= 0) {
+                    successorEarlier[positions[event] >>> 6] |= 1L << positions[event];
+                }
+            }
+        }
+        return new ProjectionKey(key);
+    }
+
+
+    //the group of every variant (-1 if the variant is not grouped), groups are numbered from 0 to getNumGroups() - 1
+    public static class Grouping {
+        private final int[] groups;
+        private final boolean[] chainGroups;
+
+        private Grouping(int[] groups, boolean[] chainGroups) {
+            this.groups = groups;
+            this.chainGroups = chainGroups;
+        }
+
+        public int getGroup(int variant) {
+            return groups[variant];
+        }
+
+        public int getNumGroups() {
+            return chainGroups.length;
+        }
+
+        //whether the group consists of chains, which share their status even for overfed places
+        public boolean isChainGroup(int group) {
+            return chainGroups[group];
+        }
+    }
+
+
+    private static class ProjectionKey {
+        private static final ProjectionKey EMPTY = new ProjectionKey(new int[0]);
+
+        private final int[] values;
+        private final boolean chain;
+        private final int hash;
+
+        private ProjectionKey(int[] values) {
+            this(values, false);
+        }
+
+        private ProjectionKey(int[] values, boolean chain) {
+            this.values = values;
+            this.chain = chain;
+            this.hash = Arrays.hashCode(values) * 2 + (chain ? 1 : 0);
+        }
+
+        private ProjectionKey asChain() {
+            return new ProjectionKey(values, true);
+        }
+
+        @Override
+        public boolean equals(Object key) {
+            return key instanceof ProjectionKey && ((ProjectionKey) key).chain == chain && Arrays.equals(((ProjectionKey) key).values, values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
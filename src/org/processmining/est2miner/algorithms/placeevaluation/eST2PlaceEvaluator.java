@@ -1,15 +1,15 @@
 package org.processmining.est2miner.algorithms.placeevaluation;
 
+import org.processmining.est2miner.models.coreobjects.ESTCompiledPartialOrder;
 import org.processmining.est2miner.models.coreobjects.ESTPartialOrder;
-import org.processmining.est2miner.models.coreobjects.ESTPartialOrderLog;
 import org.processmining.est2miner.models.coreobjects.ESTPlace;
+import org.processmining.est2miner.models.coreobjects.ESTVariantVector;
 import org.processmining.models.graphbased.directed.petrinet.Petrinet;
 import org.processmining.models.graphbased.directed.petrinet.elements.Place;
 import org.processmining.models.graphbased.directed.petrinet.elements.Transition;
 import org.processmining.models.graphbased.directed.petrinet.impl.PetrinetImpl;
 
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Set;
 
 public class eST2PlaceEvaluator {
@@ -45,38 +45,107 @@ public class eST2PlaceEvaluator {
         }
     }
 
-    public static PlaceLogReplayResult evaluatePlaceWithLog(ESTPartialOrderLog pLog, HashMap<ESTPartialOrder, Integer> traceCounts, HashSet<String> ingoingTransitions, HashSet<String> outgoingTransitions, ESTPlace place) {
-        Petrinet placePetriNet = createPlacePetriNet(ingoingTransitions, outgoingTransitions);
+    //replays the place given by its producing and consuming transitions on all (compiled) variants, counting traces by fitness status
+    public static PlaceLogReplayResult evaluatePlaceWithLog(ESTCompiledPartialOrder[] variants, int[] variantCounts, int maxVariantSize, boolean[] produces, boolean[] consumes, ESTPlace place) {
+        return evaluatePlaceWithLog(variants, variantCounts, maxVariantSize, produces, consumes, place, null, null);
+    }
+
+    //as above, but only the variants in replayedVariants are replayed, all other variants take their status from the replay profile of the given parent
+    //this is correct if the place differs from the parent only in transitions that do not occur in the other variants
+    public static PlaceLogReplayResult evaluatePlaceWithLog(ESTCompiledPartialOrder[] variants, int[] variantCounts, int maxVariantSize, boolean[] produces, boolean[] consumes, ESTPlace place, ESTPlace parent, ESTVariantVector replayedVariants) {
+        return evaluatePlaceWithLog(variants, variantCounts, maxVariantSize, produces, consumes, place, parent, replayedVariants, null, null, null, 0);
+    }
+
+    //as above, but the variants are visited in the given order (most frequent first) and the replay stops as soon as the remaining traces
+    //cannot change the status derived from the result by PlaceEvaluator for the given threshold anymore
+    //this only happens if the place cannot be fitting, so the variant vector is complete for all fitting places
+    //a stopped replay leaves the place without replay profile, its children are then replayed on all variants
+    //without variantOrder all variants are replayed in their natural order
+    //variants with a known status (e.g. from the token balance) are not replayed, knownStatus may be null
+    //variants in the same group of the projection grouping (onto the transitions of the place) are replayed once, grouping may be null
+    //the status of the first replayed variant of a group is only shared if it is a chain group or the place is not overfed, see VariantProjections
+    public static PlaceLogReplayResult evaluatePlaceWithLog(ESTCompiledPartialOrder[] variants, int[] variantCounts, int maxVariantSize, boolean[] produces, boolean[] consumes, ESTPlace place, ESTPlace parent, ESTVariantVector replayedVariants, FitnessStatus[] knownStatus, VariantProjections.Grouping grouping, int[] variantOrder, double threshold) {
+        LpoESTCompiledValidator validator = new LpoESTCompiledValidator(produces, consumes, maxVariantSize);
+        FitnessStatus[] groupStatus = grouping == null ? null : new FitnessStatus[grouping.getNumGroups()];
+        ESTVariantVector overfedVariants = new ESTVariantVector(variants.length);
+        ESTVariantVector underfedVariants = new ESTVariantVector(variants.length);
 
         int overfedCount = 0;
         int underfedCount = 0;
         int overAndUnderfedCount = 0;
         int fittingCount = 0;
 
-        for (int i = 0; i < pLog.size(); i++) {
-            ESTPartialOrder trace = pLog.get(i);
-            FitnessStatus fitnessStatus = evaluatePlace(trace, placePetriNet);
+        int numTraces = 0;
+        for (int count : variantCounts) {
+            numTraces += count;
+        }
+        int remainingCount = numTraces;
+
+        for (int pos = 0; pos < variants.length; pos++) {
+            int i = variantOrder == null ? pos : variantOrder[pos];
+            FitnessStatus fitnessStatus;
+            if (knownStatus != null && knownStatus[i] != null) {
+                fitnessStatus = knownStatus[i];
+            } else if (parent != null && !replayedVariants.get(i)) {
+                fitnessStatus = getStatus(parent.getOverfedVariants().get(i), parent.getUnderfedVariants().get(i));
+            } else if (grouping != null && grouping.getGroup(i) >= 0) {
+                int group = grouping.getGroup(i);
+                if (groupStatus[group] != null) {
+                    fitnessStatus = groupStatus[group];
+                } else {
+                    fitnessStatus = validator.validate(variants[i]);
+                    if (grouping.isChainGroup(group) || (fitnessStatus != FitnessStatus.OVERFED && fitnessStatus != FitnessStatus.OVER_AND_UNDERFED)) {
+                        groupStatus[group] = fitnessStatus;
+                    }
+                }
+            } else {
+                fitnessStatus = validator.validate(variants[i]);
+            }
 
             switch (fitnessStatus) {
                 case OVERFED:
-                    overfedCount = overfedCount + traceCounts.get(trace);
+                    overfedVariants.set(i, true);
+                    overfedCount = overfedCount + variantCounts[i];
                     break;
                 case UNDERFED:
-                    underfedCount = underfedCount + traceCounts.get(trace);
+                    underfedVariants.set(i, true);
+                    underfedCount = underfedCount + variantCounts[i];
                     break;
                 case OVER_AND_UNDERFED:
-                    overAndUnderfedCount = overAndUnderfedCount + traceCounts.get(trace);
+                    overfedVariants.set(i, true);
+                    underfedVariants.set(i, true);
+                    overAndUnderfedCount = overAndUnderfedCount + variantCounts[i];
                     break;
                 case Fitting:
                     place.editVariantVector(i, true);
-                    fittingCount = fittingCount + traceCounts.get(trace);
+                    fittingCount = fittingCount + variantCounts[i];
                     break;
             }
+            remainingCount = remainingCount - variantCounts[i];
+
+            if (variantOrder != null && remainingCount > 0 && isStatusDecided(fittingCount, underfedCount + overAndUnderfedCount, overfedCount + overAndUnderfedCount, remainingCount, numTraces, threshold)) {
+                return new PlaceLogReplayResult(overfedCount, underfedCount, overAndUnderfedCount, fittingCount, numTraces);
+            }
         }
+        place.setReplayProfile(overfedVariants, underfedVariants);
 
         return new PlaceLogReplayResult(overfedCount, underfedCount, overAndUnderfedCount, fittingCount);
     }
 
+    //whether the place cannot become fitting and the underfed and overfed conditions of PlaceEvaluator are fixed, whatever the status of the remaining traces
+    //the fractions are computed like in PlaceLogReplayResult, they only grow with the counts, so comparing the bounds is exact
+    private static boolean isStatusDecided(int fittingCount, int underfedCount, int overfedCount, int remainingCount, int numTraces, double threshold) {
+        if ((double) (fittingCount + remainingCount) / numTraces >= threshold) {
+            return false;
+        }
+
+        return isConditionDecided(underfedCount, remainingCount, numTraces, threshold) && isConditionDecided(overfedCount, remainingCount, numTraces, threshold);
+    }
+
+    private static boolean isConditionDecided(int count, int remainingCount, int numTraces, double threshold) {
+        return (double) count / numTraces > (1.0 - threshold) || (double) (count + remainingCount) / numTraces <= (1.0 - threshold);
+    }
+
     public static FitnessStatus evaluatePlace(ESTPartialOrder pTrace, Petrinet placePetriNet) {
         LpoESTFireValidator validator = new LpoESTFireValidator(placePetriNet, pTrace);
 
@@ -18,6 +18,7 @@ public class UIDialog extends ProMPropertiesPanel implements ProMWizardStep<Para
     NiceDoubleSlider threshold_delta;
     JCheckBox RemoveImplicitPlacesBox;
     NiceIntegerSlider treeDepth;
+    NiceIntegerSlider numThreads;
 
     //method that actually takes the parameters
     public UIDialog() {
@@ -37,6 +38,11 @@ public class UIDialog extends ProMPropertiesPanel implements ProMWizardStep<Para
         //configure tree traversal depth
         this.treeDepth = SlickerFactory.instance().createNiceIntegerSlider("Max Number of Transitions: ", 1, 20, 8, Orientation.HORIZONTAL);
         this.add(this.treeDepth);
+
+        //configure number of threads used for place evaluation
+        int availableProcessors = Runtime.getRuntime().availableProcessors();
+        this.numThreads = SlickerFactory.instance().createNiceIntegerSlider("Evaluation Threads: ", 1, Math.max(2, availableProcessors), availableProcessors, Orientation.HORIZONTAL);
+        this.add(this.numThreads);
     }
 
     //store input in parameters
@@ -49,7 +55,9 @@ public class UIDialog extends ProMPropertiesPanel implements ProMWizardStep<Para
 
         boolean removeImplicitPlaces = RemoveImplicitPlacesBox.isSelected();
 
-        return new Parameters(treeDepth, threshold_tau_result, threshold_delta_result, removeImplicitPlaces);
+        int numThreads = this.numThreads.getValue();
+
+        return new Parameters(treeDepth, threshold_tau_result, threshold_delta_result, removeImplicitPlaces, numThreads);
     }
 
     public boolean canApply(Parameters model, JComponent component) {
@@ -3,6 +3,7 @@ package org.processmining.est2miner.models;
 import java.util.HashMap;
 
 //statistics should always be collected within the method generating them, not around the call
+//counters that are incremented during (parallel) place evaluation are synchronized
 public class PlugInStatistics {
 
     private int numFittingPlaces = 0; //places  evaluated to be  fitting
@@ -89,30 +90,30 @@ public class PlugInStatistics {
     }
 
 
-    public void incNumUnfitting() {
+    public synchronized void incNumUnfitting() {
         numUnfittingPlaces++;
     }
 
-    public void incNumFitting() {
+    public synchronized void incNumFitting() {
         numFittingPlaces++;
     }
 
-    public void incNumCutPaths(int num) {
+    public synchronized void incNumCutPaths(int num) {
         numCutPaths = numCutPaths + num;
     }
 
 
     //Increment time methods
 
-    public void incTimeCandidateFinding(final long time) {
+    public synchronized void incTimeCandidateFinding(final long time) {
         timeCandidateTraversal = timeCandidateTraversal + time;
     }
 
-    public void incTimeImpTest(final long time) {
+    public synchronized void incTimeImpTest(final long time) {
         timeImplicitnessTest = timeImplicitnessTest + time;
     }
 
-    public void incTimeEval(final long time) {
+    public synchronized void incTimeEval(final long time) {
         this.timeCandidateEvaluation = timeCandidateEvaluation + time;
     }
 
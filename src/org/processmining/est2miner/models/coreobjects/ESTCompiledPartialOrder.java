@@ -0,0 +1,181 @@
+package org.processmining.est2miner.models.coreobjects;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.Map;
+
+//immutable, array based form of an ESTPartialOrder used for replay
+//events are referred to by their position in the partial order, activities by their position in the (ingoing) transitions array
+//successors and predecessors are stored in CSR form: the successors of event i are succ[succStart[i]] ... succ[succStart[i+1]-1]
+public class ESTCompiledPartialOrder {
+    private final int[] activities; //transition index of every event
+    private final int[] topologicalOrder; //same total ordering as used by the LPO validators
+    private final int[] succStart;
+    private final int[] succ;
+    private final int[] predStart;
+    private final int[] pred;
+    private final boolean chain; //totally ordered: every event but the last has exactly one successor
+    private final int[] orderedActivities; //transition index of every event, in the order of topologicalOrder
+    private final boolean singleSink; //every event but the last of the total ordering has a successor, so the replay passes all tokens to the last event
+
+    public ESTCompiledPartialOrder(ESTPartialOrder partialOrder, Map<String, Integer> transitionIndices) {
+        int n = partialOrder.size();
+        this.activities = new int[n];
+        for (int i = 0; i < n; i++) {
+            activities[i] = transitionIndices.get(partialOrder.get(i));
+        }
+
+        // keep the order of the partial order, the successors/predecessors of an event are sorted
+        ArrayList<Collection<Integer>> successors = new ArrayList<>(n);
+        ArrayList<Collection<Integer>> predecessors = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            successors.add(partialOrder.getSuccessorIndices(i));
+            predecessors.add(partialOrder.getPredecessorIndices(i));
+        }
+        this.succStart = new int[n + 1];
+        this.succ = toCSR(successors, succStart);
+        this.predStart = new int[n + 1];
+        this.pred = toCSR(predecessors, predStart);
+        this.topologicalOrder = computeTotalOrdering();
+        this.chain = computeIsChain();
+        this.singleSink = computeIsSingleSink();
+        this.orderedActivities = new int[n];
+        for (int pos = 0; pos < n; pos++) {
+            orderedActivities[pos] = activities[topologicalOrder[pos]];
+        }
+    }
+
+    //a chain is connected and has no concurrent events, so the replay never branches
+    private boolean computeIsChain() {
+        int n = activities.length;
+        if (succ.length != n - 1) {
+            return false;
+        }
+        for (int pos = 0; pos < n - 1; pos++) {
+            int event = topologicalOrder[pos];
+            if (succStart[event + 1] - succStart[event] != 1 || succ[succStart[event]] != topologicalOrder[pos + 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //events that are not connected to any other event keep their tokens, then the final marking is not the token balance of the partial order
+    private boolean computeIsSingleSink() {
+        int n = activities.length;
+        for (int pos = 0; pos < n - 1; pos++) {
+            int event = topologicalOrder[pos];
+            if (succStart[event + 1] == succStart[event]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int[] toCSR(ArrayList<Collection<Integer>> adjacency, int[] start) {
+        int size = 0;
+        for (int i = 0; i < adjacency.size(); i++) {
+            start[i] = size;
+            size += adjacency.get(i).size();
+        }
+        start[adjacency.size()] = size;
+
+        int[] result = new int[size];
+        int pos = 0;
+        for (Collection<Integer> neighbours : adjacency) {
+            for (Integer neighbour : neighbours) {
+                result[pos++] = neighbour;
+            }
+        }
+        return result;
+    }
+
+    //orders the events like LpoESTFireValidator: start with event 0, then repeatedly add the next event (in index order) whose predecessors are all contained
+    private int[] computeTotalOrdering() {
+        int n = activities.length;
+        int[] ordering = new int[n];
+        boolean[] contained = new boolean[n];
+        ordering[0] = 0;
+        contained[0] = true;
+        int size = 1;
+
+        LinkedList<Integer> examineLater = new LinkedList<>();
+        for (int i = 0; i < n; i++) {
+            examineLater.add(i);
+        }
+        while (!examineLater.isEmpty()) {
+            int e = examineLater.removeFirst();
+            if (contained[e]) {
+                continue;
+            }
+
+            boolean add = true;
+            for (int k = predStart[e]; k < predStart[e + 1]; k++) {
+                if (!contained[pred[k]]) {
+                    add = false;
+                    break;
+                }
+            }
+            if (add) {
+                ordering[size++] = e;
+                contained[e] = true;
+            } else {
+                examineLater.add(e);
+            }
+        }
+
+        return ordering;
+    }
+
+    //G&S
+    public int size() {
+        return activities.length;
+    }
+
+    public int getActivity(int event) {
+        return activities[event];
+    }
+
+    public boolean isChain() {
+        return chain;
+    }
+
+    public boolean isSingleSink() {
+        return singleSink;
+    }
+
+    //returns the activity of the event at the given position of the total ordering
+    public int getOrderedActivity(int position) {
+        return orderedActivities[position];
+    }
+
+    //returns the event at the given position of the total ordering
+    public int getOrderedEvent(int position) {
+        return topologicalOrder[position];
+    }
+
+    public int getSuccessorCount(int event) {
+        return succStart[event + 1] - succStart[event];
+    }
+
+    public int getFirstSuccessor(int event) {
+        return succ[succStart[event]];
+    }
+
+    public int getSuccessorStart(int event) {
+        return succStart[event];
+    }
+
+    public int getSuccessor(int k) {
+        return succ[k];
+    }
+
+    public int getPredecessorCount(int event) {
+        return predStart[event + 1] - predStart[event];
+    }
+
+    public int getFirstPredecessor(int event) {
+        return pred[predStart[event]];
+    }
+}
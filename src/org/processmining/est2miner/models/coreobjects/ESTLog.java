@@ -10,6 +10,14 @@ public class ESTLog {
     int numberOfTraces;
     final ArrayList<ArrayList<Integer>> traceVariants; //transitions are encoded as integers according to the positioning in the (ingoing) transitions array
     final HashMap<ArrayList<Integer>, Integer> traceVariantCounts;
+    private final ESTCompiledPartialOrder[] compiledVariants; //variants in the same order as traceVariants, used for replay
+    private final int[] variantCounts; //number of traces per variant partial order (as counted in the partial order log), same order as traceVariants
+    private int maxVariantSize;
+    private final int[][] variantTransitions; //distinct transitions occurring in every variant, same order as traceVariants
+    private final int[] traceVariantCountsArray; //traceVariantCounts in the order of traceVariants
+    private final ESTVariantVector[] transitionOccurrences; //inverted index: the variants containing each transition
+    private final int[][] transitionCounts; //per transition: the number of its events in every variant (columns of the Parikh vectors)
+    private final ESTVariantTrie chainTrie; //the chain variants with their common prefixes stored once
     private final String[] transitions;
     private final String[] outTransitions;
     final int[] outTransitionMapping;
@@ -25,47 +33,52 @@ public class ESTLog {
         Pair<ArrayList<ArrayList<Integer>>, HashMap<ArrayList<Integer>, Integer>> logObject = computeFinalLogObjects(countedPLog);
         this.traceVariants = logObject.getFirst();
         this.traceVariantCounts = logObject.getSecond();
+        ArrayList<ESTPartialOrder> variants = getVariantPartialOrders(countedPLog);
+        this.compiledVariants = compileVariants(variants);
+        this.variantCounts = new int[variants.size()];
+        for (int i = 0; i < variants.size(); i++) {
+            variantCounts[i] = countedPLog.getPTraceCounts().get(variants.get(i));
+        }
+        this.variantTransitions = new int[traceVariants.size()][];
+        this.traceVariantCountsArray = new int[traceVariants.size()];
+        for (int i = 0; i < traceVariants.size(); i++) {
+            variantTransitions[i] = traceVariants.get(i).stream().mapToInt(Integer::intValue).distinct().toArray();
+            traceVariantCountsArray[i] = traceVariantCounts.get(traceVariants.get(i));
+        }
+        this.transitionOccurrences = computeTransitionOccurrences();
+        this.transitionCounts = computeTransitionCounts();
+        this.chainTrie = new ESTVariantTrie(compiledVariants);
     }
 
 
     //returns a set of variants corresponding to the given variant vector
-    public ArrayList<ArrayList<Integer>> getReducedTraceVariants(boolean[] variantVector) {
+    public ArrayList<ArrayList<Integer>> getReducedTraceVariants(ESTVariantVector variantVector) {
         ArrayList<ArrayList<Integer>> reducedTraceVariants = new ArrayList<>();
-        if (!(variantVector.length == traceVariants.size())) {
+        if (!(variantVector.size() == traceVariants.size())) {
             System.out.println("Error reducing log to replayable variants! Variant vector does not match log size.");
         }
-        for (int i = 0; i < variantVector.length; i++) {
-            if (variantVector[i]) {
-                reducedTraceVariants.add(this.traceVariants.get(i));
-            }
+        for (int i = variantVector.nextSetBit(0); i >= 0; i = variantVector.nextSetBit(i + 1)) {
+            reducedTraceVariants.add(this.traceVariants.get(i));
         }
         return reducedTraceVariants;
     }
 
     //returns the sum of all traces encoded in the given variant vector
-    public int countLiveTraces(boolean[] variantVector) {
+    public int countLiveTraces(ESTVariantVector variantVector) {
         int sum = 0;
-        for (int i = 0; i < variantVector.length; i++) {
-            if (variantVector[i]) {
-                sum = sum + traceVariantCounts.get(this.traceVariants.get(i));
-            }
+        for (int i = variantVector.nextSetBit(0); i >= 0; i = variantVector.nextSetBit(i + 1)) {
+            sum = sum + traceVariantCounts.get(this.traceVariants.get(i));
         }
         return sum;
     }
 
 
     //returns a transition array encoding which transitions are contained (live) in log encoded by the given variant vector
-    public boolean[] getTransitionsLiveness(boolean[] variantVector) {
-        //initialize all dead
+    public boolean[] getTransitionsLiveness(ESTVariantVector variantVector) {
         boolean[] transitionsLiveness = new boolean[transitions.length];
-        //replay variants and set to true if occurring
-        ArrayList<ArrayList<Integer>> reducedVariants = this.getReducedTraceVariants(variantVector);
-        for (ArrayList<Integer> variant : reducedVariants) {
-            for (int i = 0; i < transitionsLiveness.length; i++) {
-                if (variant.contains(i)) {
-                    transitionsLiveness[i] = true;
-                }
-            }
+        //a transition is live iff one of the variants containing it is live
+        for (int i = 0; i < transitionsLiveness.length; i++) {
+            transitionsLiveness[i] = transitionOccurrences[i].intersects(variantVector);
         }
 
         return transitionsLiveness;
@@ -198,7 +211,59 @@ public class ESTLog {
     }
 
 
-    private ArrayList<Integer> convertTrace(ArrayList<String> trace) {
+    //returns the partial orders of the variants in the same order as computeFinalLogObjects()
+    private ArrayList<ESTPartialOrder> getVariantPartialOrders(CountedPLog inputLog) {
+        ArrayList<ESTPartialOrder> result = new ArrayList<>();
+        HashSet<Integer> variantPositions = inputLog.getVariantPositions();
+        for (int i = 0; i < inputLog.getVariantLog().size(); i++) {
+            if (variantPositions.isEmpty() || variantPositions.contains(i)) {
+                result.add(inputLog.getVariantLog().get(i));
+            }
+        }
+        return result;
+    }
+
+    private ESTCompiledPartialOrder[] compileVariants(ArrayList<ESTPartialOrder> variants) {
+        HashMap<String, Integer> transitionIndices = new HashMap<>();
+        for (int i = 0; i < transitions.length; i++) {
+            transitionIndices.put(transitions[i], i);
+        }
+
+        ESTCompiledPartialOrder[] result = new ESTCompiledPartialOrder[variants.size()];
+        for (int i = 0; i < variants.size(); i++) {
+            result[i] = new ESTCompiledPartialOrder(variants.get(i), transitionIndices);
+            maxVariantSize = Math.max(maxVariantSize, result[i].size());
+        }
+        return result;
+    }
+
+
+    private ESTVariantVector[] computeTransitionOccurrences() {
+        ESTVariantVector[] result = new ESTVariantVector[transitions.length];
+        for (int i = 0; i < transitions.length; i++) {
+            result[i] = new ESTVariantVector(traceVariants.size());
+        }
+        for (int v = 0; v < traceVariants.size(); v++) {
+            for (int t : variantTransitions[v]) {
+                result[t].set(v, true);
+            }
+        }
+        return result;
+    }
+
+
+    private int[][] computeTransitionCounts() {
+        int[][] result = new int[transitions.length][compiledVariants.length];
+        for (int v = 0; v < compiledVariants.length; v++) {
+            for (int e = 0; e < compiledVariants[v].size(); e++) {
+                result[compiledVariants[v].getActivity(e)][v]++;
+            }
+        }
+        return result;
+    }
+
+
+    private ArrayList<Integer> convertTrace(List<String> trace) {
         ArrayList<Integer> result = new ArrayList<>();
         for (String activity : trace) {
             for (int i = 0; i < transitions.length; i++) {
@@ -227,6 +292,8 @@ public class ESTLog {
 
     public void printBasicLogSummary() {
         System.out.println("Number of Traces: " + this.numberOfTraces + ", Unique Variants: " + this.traceVariants.size() + ", Number of Activities: " + transitions.length);
+        System.out.println("Sequential Variants: " + getNumChainVariants() + " of " + compiledVariants.length);
+        System.out.println("Prefix Trie of Sequential Variants: " + chainTrie.getNumNodes() + " nodes for " + chainTrie.getNumEvents() + " events");
     }
 
     //___________________getter & setter_____________________________________
@@ -254,4 +321,49 @@ public class ESTLog {
     public int getInEndIndex() {
         return this.inEndIndex;
     }
+
+    public ESTCompiledPartialOrder[] getCompiledVariants() {
+        return this.compiledVariants;
+    }
+
+    public int[] getVariantCounts() {
+        return this.variantCounts;
+    }
+
+    public int getMaxVariantSize() {
+        return this.maxVariantSize;
+    }
+
+    public int[] getVariantTransitions(int variant) {
+        return this.variantTransitions[variant];
+    }
+
+    //returns the set of variants containing the given transition
+    public ESTVariantVector getTransitionOccurrences(int transition) {
+        return this.transitionOccurrences[transition];
+    }
+
+    //returns the number of events of the given transition in every variant
+    public int[] getTransitionCounts(int transition) {
+        return this.transitionCounts[transition];
+    }
+
+    public ESTVariantTrie getChainTrie() {
+        return this.chainTrie;
+    }
+
+    //number of variants without concurrency, replayed by a running sum
+    public int getNumChainVariants() {
+        int result = 0;
+        for (ESTCompiledPartialOrder variant : compiledVariants) {
+            if (variant.isChain()) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    public int getTraceVariantCount(int variant) {
+        return this.traceVariantCountsArray[variant];
+    }
 }
\ No newline at end of file
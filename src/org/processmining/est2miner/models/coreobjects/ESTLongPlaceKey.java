@@ -0,0 +1,66 @@
+package org.processmining.est2miner.models.coreobjects;
+
+//place key for logs with up to 64 transitions, bit i is set iff the transition at position i is contained
+final class ESTLongPlaceKey extends ESTPlaceKey {
+    static final ESTLongPlaceKey EMPTY = new ESTLongPlaceKey(0L);
+
+    private final long bits;
+
+    private ESTLongPlaceKey(final long bits) {
+        this.bits = bits;
+    }
+
+    private static ESTLongPlaceKey valueOf(final long bits) {
+        return bits == 0L ? EMPTY : new ESTLongPlaceKey(bits);
+    }
+
+    public boolean contains(final int position) {
+        return (bits & (1L << position)) != 0;
+    }
+
+    public ESTPlaceKey with(final int position) {
+        return valueOf(bits | (1L << position));
+    }
+
+    public ESTPlaceKey or(final ESTPlaceKey key) {
+        return valueOf(bits | ((ESTLongPlaceKey) key).bits);
+    }
+
+    public ESTPlaceKey and(final ESTPlaceKey key) {
+        return valueOf(bits & ((ESTLongPlaceKey) key).bits);
+    }
+
+    public ESTPlaceKey andNot(final ESTPlaceKey key) {
+        return valueOf(bits & ~((ESTLongPlaceKey) key).bits);
+    }
+
+    public int size() {
+        return Long.bitCount(bits);
+    }
+
+    public boolean isEmpty() {
+        return bits == 0L;
+    }
+
+    public int nextPosition(final int from) {
+        if (from >= 64) {
+            return -1;
+        }
+        long remaining = bits & (-1L << from);
+        return remaining == 0L ? -1 : Long.numberOfTrailingZeros(remaining);
+    }
+
+    public int lastPosition() {
+        return 63 - Long.numberOfLeadingZeros(bits);
+    }
+
+    @Override
+    public boolean equals(Object key) {
+        return key instanceof ESTLongPlaceKey && ((ESTLongPlaceKey) key).bits == bits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(bits);
+    }
+}
@@ -1,89 +1,193 @@
 package org.processmining.est2miner.models.coreobjects;
 
-import edu.uci.ics.jung.graph.DirectedSparseGraph;
 import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.model.XEvent;
 import org.processmining.partialorder.models.dependency.PDependency;
-import org.processmining.partialorder.models.dependency.PDependencyImp;
 import org.processmining.partialorder.ptrace.model.PTrace;
 
 import java.util.*;
 import java.util.function.Consumer;
 
-public class ESTPartialOrder extends DirectedSparseGraph<Integer, PDependency> implements Iterable<String> {
-    private final ArrayList<String> activities;
+//immutable partial order over the events of a trace, event 0 is an artificial start and the last event an artificial end event
+//the ordering is stored in CSR form: the successors of event i are succ[succStart[i]] ... succ[succStart[i+1]-1], predecessors likewise
+//the successors and predecessors of an event are sorted by their index
+public class ESTPartialOrder implements Iterable<String> {
+    private static final String ARTIFICIAL_START = "ArtificialStart";
+    private static final String ARTIFICIAL_END = "ArtificialEnd";
+
+    private final String[] activities;
+    private final int[] succStart;
+    private final int[] succ;
+    private final int[] predStart;
+    private final int[] pred;
 
     public ESTPartialOrder(ArrayList<String> activities) {
-        this.activities = new ArrayList<>(activities);
+        this.activities = activities.toArray(new String[0]);
+        this.succStart = new int[this.activities.length + 1];
+        this.succ = new int[0];
+        this.predStart = new int[this.activities.length + 1];
+        this.pred = new int[0];
     }
 
     public ESTPartialOrder(PTrace pTrace, XEventClassifier classifier) {
-        LinkedList<String> activities = new LinkedList<>();
+        this(pTrace, classifier, new HashMap<>());
+    }
 
-        activities.add("ArtificialStart");
+    //the labels map is used to share one instance per activity label among all partial orders of a log
+    public ESTPartialOrder(PTrace pTrace, XEventClassifier classifier, Map<String, String> labels) {
+        this(getEventLabels(pTrace, classifier), getDependencyEvents(pTrace, true), getDependencyEvents(pTrace, false), labels);
+    }
 
-        pTrace.getTrace().forEach(event -> activities.add(classifier.getClassIdentity(event)));
+    //the dependencies are given as pairs (dependencySources[k], dependencyTargets[k]) of event positions, not counting the artificial start event
+    public ESTPartialOrder(String[] eventLabels, int[] dependencySources, int[] dependencyTargets, Map<String, String> labels) {
+        int n = eventLabels.length + 2;
+        int last = n - 1;
 
-        activities.add("ArtificialEnd");
+        activities = new String[n];
+        activities[0] = ARTIFICIAL_START;
+        for (int i = 0; i < eventLabels.length; i++) {
+            String shared = labels.putIfAbsent(eventLabels[i], eventLabels[i]);
+            activities[i + 1] = shared == null ? eventLabels[i] : shared;
+        }
+        activities[last] = ARTIFICIAL_END;
+
+        //edges in the order they are added, duplicates are dropped
+        int numDependencies = dependencySources.length;
+        int[] from = new int[numDependencies + n];
+        int[] to = new int[numDependencies + n];
+        int[] nextOut = new int[numDependencies + n];
+        int[] outHead = new int[n];
+        Arrays.fill(outHead, -1);
+        int[] inDegree = new int[n];
+        int[] outDegree = new int[n];
+        int edgeCount = 0;
+
+        boolean[] isVertex = new boolean[n]; //events connected by a dependency
+
+        for (int d = 0; d < numDependencies; d++) {
+            int source = dependencySources[d] + 1;
+            int target = dependencyTargets[d] + 1;
+            boolean duplicate = false;
+            for (int e = outHead[source]; e != -1; e = nextOut[e]) {
+                if (to[e] == target) {
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (duplicate) {
+                continue;
+            }
+            isVertex[source] = true;
+            isVertex[target] = true;
+            from[edgeCount] = source;
+            to[edgeCount] = target;
+            nextOut[edgeCount] = outHead[source];
+            outHead[source] = edgeCount;
+            outDegree[source]++;
+            inDegree[target]++;
+            edgeCount++;
+        }
 
-        this.activities = new ArrayList<>(activities);
+        //connect the artificial start to all events without predecessors
+        int[] startEvents = filterVertices(isVertex, inDegree, last);
+        for (int startEvent : startEvents) {
+            from[edgeCount] = 0;
+            to[edgeCount] = startEvent;
+            outDegree[0]++;
+            inDegree[startEvent]++;
+            edgeCount++;
+        }
 
-        pTrace.getDependencies().forEach(dependency -> {
-            int from = dependency.getSource() + 1;
-            int to = dependency.getTarget() + 1;
-            addEdge(new PDependencyImp(from, to), from, to);
-        });
+        //connect all events without successors to the artificial end
+        int[] endEvents = filterVertices(isVertex, outDegree, last);
+        for (int endEvent : endEvents) {
+            from[edgeCount] = endEvent;
+            to[edgeCount] = last;
+            outDegree[endEvent]++;
+            inDegree[last]++;
+            edgeCount++;
+        }
 
-        HashSet<Integer> startActivityPos = new HashSet<>();
+        succStart = new int[n + 1];
+        succ = toCSR(from, to, edgeCount, outDegree, succStart);
+        predStart = new int[n + 1];
+        pred = toCSR(to, from, edgeCount, inDegree, predStart);
+    }
 
-        for (Integer i : this.getVertices()) {
-            if (this.getInEdges(i).isEmpty()) {
-                startActivityPos.add(i);
-            }
+    private static String[] getEventLabels(PTrace pTrace, XEventClassifier classifier) {
+        String[] result = new String[pTrace.getTrace().size()];
+        int pos = 0;
+        for (XEvent event : pTrace.getTrace()) {
+            result[pos++] = classifier.getClassIdentity(event);
         }
-        startActivityPos.remove(0);
-        startActivityPos.remove(this.activities.size() - 1);
 
-        startActivityPos.forEach(pos -> addEdge(new PDependencyImp(0, pos), 0, pos));
+        return result;
+    }
 
-        HashSet<Integer> endActivityPos = new HashSet<>();
+    private static int[] getDependencyEvents(PTrace pTrace, boolean sources) {
+        int[] result = new int[pTrace.getDependencies().size()];
+        int pos = 0;
+        for (PDependency dependency : pTrace.getDependencies()) {
+            result[pos++] = sources ? dependency.getSource() : dependency.getTarget();
+        }
 
-        for (Integer i : this.getVertices()) {
-            if (this.getOutEdges(i).isEmpty()) {
-                endActivityPos.add(i);
+        return result;
+    }
+
+    //returns the connected events with degree 0 (except for the artificial events), in index order
+    private static int[] filterVertices(boolean[] isVertex, int[] degree, int last) {
+        int[] result = new int[last];
+        int count = 0;
+        for (int vertex = 1; vertex < last; vertex++) {
+            if (isVertex[vertex] && degree[vertex] == 0) {
+                result[count++] = vertex;
             }
         }
-        endActivityPos.remove(this.activities.size() - 1);
 
-        endActivityPos.forEach(pos -> addEdge(new PDependencyImp(pos, this.activities.size() - 1), pos, this.activities.size() - 1));
+        return Arrays.copyOf(result, count);
     }
 
-    public Collection<Integer> getPredecessorIndices(int index) {
-        Set<Integer> predecessors = new HashSet<>();
-        if (this.getVertices().contains(index)) {
-            for (PDependency in : this.getInEdges(index)) {
-                predecessors.add(in.getSource());
-            }
+    private static int[] toCSR(int[] owners, int[] neighbours, int edgeCount, int[] degree, int[] start) {
+        int n = degree.length;
+        for (int i = 0; i < n; i++) {
+            start[i + 1] = start[i] + degree[i];
         }
 
-        return predecessors;
+        int[] result = new int[edgeCount];
+        int[] fill = Arrays.copyOf(start, n);
+        for (int e = 0; e < edgeCount; e++) {
+            result[fill[owners[e]]++] = neighbours[e];
+        }
+        for (int i = 0; i < n; i++) {
+            Arrays.sort(result, start[i], start[i + 1]);
+        }
+
+        return result;
+    }
+
+    public Collection<Integer> getPredecessorIndices(int index) {
+        return toList(pred, predStart[index], predStart[index + 1]);
     }
 
     public Collection<Integer> getSuccessorIndices(int index) {
-        Set<Integer> successors = new HashSet<>();
-        if (this.getVertices().contains(index)) {
-            for (PDependency out : this.getOutEdges(index)) {
-                successors.add(out.getTarget());
-            }
+        return toList(succ, succStart[index], succStart[index + 1]);
+    }
+
+    private static ArrayList<Integer> toList(int[] values, int from, int to) {
+        ArrayList<Integer> result = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            result.add(values[i]);
         }
 
-        return successors;
+        return result;
     }
 
+    //events that are connected to other events, but have no predecessors
     public Set<Integer> getStartEventIndices() {
         Set<Integer> result = new HashSet<>();
 
-        for (Integer i : this.getVertices()) {
-            if (this.getInEdges(i).isEmpty()) {
+        for (int i = 0; i < activities.length; i++) {
+            if (succStart[i + 1] > succStart[i] && predStart[i + 1] == predStart[i]) {
                 result.add(i);
             }
         }
@@ -91,11 +195,12 @@ public class ESTPartialOrder extends DirectedSparseGraph<Integer, PDependency> i
         return result;
     }
 
+    //events that are connected to other events, but have no successors
     public Set<Integer> getEndEventIndices() {
         Set<Integer> result = new HashSet<>();
 
-        for (Integer i : this.getVertices()) {
-            if (this.getOutEdges(i).isEmpty()) {
+        for (int i = 0; i < activities.length; i++) {
+            if (predStart[i + 1] > predStart[i] && succStart[i + 1] == succStart[i]) {
                 result.add(i);
             }
         }
@@ -103,30 +208,41 @@ public class ESTPartialOrder extends DirectedSparseGraph<Integer, PDependency> i
         return result;
     }
 
-    public ArrayList<String> getActivities() {
-        return activities;
+    //approximate retained size in bytes (object headers and arrays), the shared activity labels are not included
+    public long getMemoryFootprint() {
+        return 32 + arraySize(activities.length) + arraySize(succStart.length) + arraySize(succ.length) + arraySize(predStart.length) + arraySize(pred.length);
+    }
+
+    private static long arraySize(int length) {
+        return (16 + 4L * length + 7) & ~7L;
+    }
+
+    public List<String> getActivities() {
+        return Collections.unmodifiableList(Arrays.asList(activities));
     }
 
     public int size() {
-        return activities.size();
+        return activities.length;
     }
 
     public String get(int index) {
-        return activities.get(index);
+        return activities[index];
     }
 
     @Override
     public Iterator<String> iterator() {
-        return activities.iterator();
+        return getActivities().iterator();
     }
 
     @Override
     public void forEach(Consumer<? super String> action) {
-        activities.forEach(action);
+        for (String activity : activities) {
+            action.accept(activity);
+        }
     }
 
     @Override
     public Spliterator<String> spliterator() {
-        return activities.spliterator();
+        return Spliterators.spliterator(activities, Spliterator.ORDERED | Spliterator.IMMUTABLE);
     }
 }
@@ -2,16 +2,81 @@ package org.processmining.est2miner.models.coreobjects;
 
 import org.deckfour.xes.classification.XEventClassifier;
 import org.processmining.partialorder.ptrace.model.PLog;
+import org.processmining.partialorder.ptrace.model.PTrace;
 
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 public class ESTPartialOrderLog extends ArrayList<ESTPartialOrder> {
+    private static final int CHUNK_SIZE = 4096; //number of traces converted concurrently
+
+    private long peakHeapUsage; //highest used heap observed during the conversion, in bytes
+
     public ESTPartialOrderLog() {
         super();
     }
 
     public ESTPartialOrderLog(PLog log, XEventClassifier classifier) {
+        this(log, classifier, Runtime.getRuntime().availableProcessors());
+    }
+
+    //streams the traces of the log in chunks, the traces of a chunk are converted concurrently and keep their order
+    //the activity labels are shared among all partial orders
+    public ESTPartialOrderLog(PLog log, XEventClassifier classifier, int numThreads) {
         super();
-        log.forEach(pTrace -> add(new ESTPartialOrder(pTrace, classifier)));
+        ConcurrentHashMap<String, String> labels = new ConcurrentHashMap<>();
+        PTrace[] traces = new PTrace[CHUNK_SIZE];
+        ESTPartialOrder[] partialOrders = new ESTPartialOrder[CHUNK_SIZE];
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, numThreads));
+        Iterator<PTrace> iterator = log.iterator();
+        try {
+            while (iterator.hasNext()) {
+                int size = 0;
+                while (size < CHUNK_SIZE && iterator.hasNext()) {
+                    traces[size++] = iterator.next();
+                }
+                int chunkSize = size;
+                pool.submit(() -> IntStream.range(0, chunkSize).parallel().forEach(i -> partialOrders[i] = new ESTPartialOrder(traces[i], classifier, labels))).get();
+                for (int i = 0; i < chunkSize; i++) {
+                    add(partialOrders[i]);
+                    traces[i] = null;
+                    partialOrders[i] = null;
+                }
+                updatePeakHeapUsage();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void updatePeakHeapUsage() {
+        Runtime runtime = Runtime.getRuntime();
+        peakHeapUsage = Math.max(peakHeapUsage, runtime.totalMemory() - runtime.freeMemory());
+    }
+
+    //approximate retained size of all partial orders in bytes
+    public long getMemoryFootprint() {
+        long result = 0;
+        for (ESTPartialOrder partialOrder : this) {
+            result += partialOrder.getMemoryFootprint();
+        }
+        return result;
+    }
+
+    public long getPeakHeapUsage() {
+        return peakHeapUsage;
+    }
+
+    public void printMemorySummary() {
+        System.out.println("Partial order log: " + size() + " traces, " + getMemoryFootprint() / 1024 + "KB, peak heap usage during conversion: " + peakHeapUsage / (1024 * 1024) + "MB");
     }
 }
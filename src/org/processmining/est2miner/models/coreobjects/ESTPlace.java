@@ -8,39 +8,114 @@ import java.util.HashSet;
 public class ESTPlace {
     private static int numVariants;
 
-    private final int inputTrKey;
-    private final int outputTrKey;
+    private final ESTPlaceKey inputTrKey;
+    private final ESTPlaceKey outputTrKey;
 
-    private int activeKey;
+    private ESTPlaceKey activeKey;
 
-    private boolean[] variantVector; //used to save which trace variants are fitting this place
+    private ESTVariantVector variantVector; //used to save which trace variants are fitting this place, allocated when the place is evaluated
 
+    //replay profile: the variants replaying as overfed and as underfed, set by the evaluation
+    //it is only used by the evaluation of the children, and released once no queued child needs it anymore
+    private ESTVariantVector overfedVariants;
+    private ESTVariantVector underfedVariants;
+    private int pendingChildren; //queued children that keep this place as parent and are not evaluated yet
+    private ESTPlace parent; //the place this place was derived from in the candidate tree, only kept until this place is evaluated
 
-    public ESTPlace(final int inputTrKey, final int outputTrKey) {
+
+    public ESTPlace(final ESTPlaceKey inputTrKey, final ESTPlaceKey outputTrKey) {
         this.inputTrKey = inputTrKey;
         this.outputTrKey = outputTrKey;
-        this.activeKey = 0;
-        this.variantVector = new boolean[numVariants];
+        this.activeKey = inputTrKey.andNot(inputTrKey); //empty key of the same width
+    }
+
+    public ESTPlace(final ESTPlaceKey inputTrKey, final ESTPlaceKey outputTrKey, final ESTPlace parent) {
+        this(inputTrKey, outputTrKey);
+        this.parent = parent;
     }
 
     public ESTPlace() {
-        inputTrKey = 0;
-        outputTrKey = 0;
-        this.variantVector = new boolean[numVariants];
+        inputTrKey = ESTPlaceKey.empty(0);
+        outputTrKey = ESTPlaceKey.empty(0);
+        activeKey = ESTPlaceKey.empty(0);
     }
 
     public void editVariantVector(int pos, boolean fitnessStatus) {
-        variantVector[pos] = fitnessStatus;
+        getVariantVector().set(pos, fitnessStatus);
     }
 
-    public boolean[] getVariantVector() {
+    public ESTVariantVector getVariantVector() {
+        if (variantVector == null) {
+            variantVector = new ESTVariantVector(numVariants);
+        }
         return variantVector;
     }
 
-    public void setVariantVector(boolean[] variantVector) {
+    public void setVariantVector(ESTVariantVector variantVector) {
         this.variantVector = variantVector;
     }
 
+    public void setReplayProfile(ESTVariantVector overfedVariants, ESTVariantVector underfedVariants) {
+        this.overfedVariants = overfedVariants;
+        this.underfedVariants = underfedVariants;
+    }
+
+    public void clearReplayProfile() {
+        this.overfedVariants = null;
+        this.underfedVariants = null;
+    }
+
+    //the given number of children referencing this place as parent have been queued
+    public synchronized void addPendingChildren(int count) {
+        pendingChildren += count;
+    }
+
+    //the given number of queued children do not reference this place anymore, the last one releases the replay profile
+    //children of the same place may be evaluated concurrently, hence synchronized
+    public synchronized void releasePendingChildren(int count) {
+        pendingChildren -= count;
+        if (pendingChildren <= 0) {
+            clearReplayProfile();
+        }
+    }
+
+    public boolean hasReplayProfile() {
+        return overfedVariants != null;
+    }
+
+    public ESTVariantVector getOverfedVariants() {
+        return overfedVariants;
+    }
+
+    public ESTVariantVector getUnderfedVariants() {
+        return underfedVariants;
+    }
+
+    public ESTPlace getParent() {
+        return parent;
+    }
+
+    //called once this place is evaluated
+    public void clearParent() {
+        if (parent != null) {
+            parent.releasePendingChildren(1);
+        }
+        this.parent = null;
+    }
+
+    //returns the single transition that has to be added to the given place to obtain this place, -1 if there is none
+    public int getAddedTransition(ESTPlace place) {
+        if (!place.getInputTrKey().andNot(inputTrKey).isEmpty() || !place.getOutputTrKey().andNot(outputTrKey).isEmpty()) {
+            return -1;
+        }
+        ESTPlaceKey addedIn = inputTrKey.andNot(place.getInputTrKey());
+        ESTPlaceKey addedOut = outputTrKey.andNot(place.getOutputTrKey());
+        if (addedIn.size() + addedOut.size() != 1) {
+            return -1;
+        }
+        return addedIn.isEmpty() ? addedOut.nextPosition(0) : addedIn.nextPosition(0);
+    }
+
     public String toString() {
         return "(" + getInputTrKey() + "|" + getOutputTrKey() + ")";
     }
@@ -50,7 +125,7 @@ public class ESTPlace {
         if (place == null || !place.getClass().equals(this.getClass())) {
             return false;
         }
-        return this.getInputTrKey() == ((ESTPlace) place).getInputTrKey() && this.getOutputTrKey() == ((ESTPlace) place).getOutputTrKey();
+        return this.getInputTrKey().equals(((ESTPlace) place).getInputTrKey()) && this.getOutputTrKey().equals(((ESTPlace) place).getOutputTrKey());
     }
 
     public HashSet<String> getIngoingTransitionNameSet(final String[] transitions) {
@@ -61,13 +136,11 @@ public class ESTPlace {
         return getTransitionNameSet(outputTrKey, transitions);
     }
 
-    private HashSet<String> getTransitionNameSet(int key, final String[] transitions) {
+    private HashSet<String> getTransitionNameSet(ESTPlaceKey key, final String[] transitions) {
         HashSet<String> result = new HashSet<>();
 
-        for (int i = 0; i < transitions.length; i++) {
-            if ((key & getMask(i, transitions)) > 0) {// test whether this transition is contained in given key
-                result.add(transitions[i]);
-            }
+        for (int i = key.nextPosition(0); i >= 0; i = key.nextPosition(i + 1)) {
+            result.add(transitions[i]);
         }
 
         return result;
@@ -86,104 +159,80 @@ public class ESTPlace {
         return result;
     }
 
-    private String getKeysTransitionNames(int key, String[] transitions) {
+    private String getKeysTransitionNames(ESTPlaceKey key, String[] transitions) {
         StringBuilder result = new StringBuilder();
-        for (int i = 0; i < transitions.length; i++) {
-            if ((key & getMask(i, transitions)) > 0) {// test whether this transition is contained in given key
-                result.append(transitions[i]).append(",");
-            }
+        for (int i = key.nextPosition(0); i >= 0; i = key.nextPosition(i + 1)) {
+            result.append(transitions[i]).append(",");
         }
         return result.toString();
     }
 
     //G&S
-    public int getInputTrKey() {
+    public ESTPlaceKey getInputTrKey() {
         return inputTrKey;
     }
 
-    public int getOutputTrKey() {
+    public ESTPlaceKey getOutputTrKey() {
         return outputTrKey;
     }
 
-    //return bitmask corresponding to position in the transition array
-    private int getMask(final int position, final String[] transitions) {
-        return (1 << (transitions.length - 1 - position));
-    }
-
-    //return bitmask corresponding to position in the transition array
-    private int getMask(int position, int lengthOfArray) {
-        return (1 << (lengthOfArray - 1 - position));
-    }
-
     public static void setNumVariants(int numVariants) {
         ESTPlace.numVariants = numVariants;
     }
 
     public int getLevel() {
-        return Integer.bitCount(this.getInputTrKey()) + Integer.bitCount(this.getOutputTrKey());
+        return this.getInputTrKey().size() + this.getOutputTrKey().size();
     }
 
     //returns number of locally replayable variants
     public int getLocalFitness() {
-        int result = 0;
-        for (int i = 0; i < this.getVariantVector().length; i++) {
-            if (this.getVariantVector()[i]) {
-                result++;
-            }
-        }
-        return result;
+        return this.getVariantVector().cardinality();
     }
 
     //returns a mask with 1 where input and output are equal
-    public int getLoopsMask() {
-        return (this.getInputTrKey() & this.getOutputTrKey());
+    public ESTPlaceKey getLoopsMask() {
+        return this.getInputTrKey().and(this.getOutputTrKey());
     }
 
     //returns a mask with 1 where non-self-loop ingoing transitions are
-    public int getNonLoopsInMask() {
-        return (this.getInputTrKey() ^ this.getLoopsMask());
+    public ESTPlaceKey getNonLoopsInMask() {
+        return this.getInputTrKey().andNot(this.getLoopsMask());
     }
 
     //returns a mask with 1 where non-self-loop outgoing transitions are
-    public int getNonLoopsOutMask() {
-        return (this.getOutputTrKey() ^ this.getLoopsMask());
+    public ESTPlaceKey getNonLoopsOutMask() {
+        return this.getOutputTrKey().andNot(this.getLoopsMask());
     }
 
     //merges two places by creating the union of ingoing and outgoing transitions
     public ESTPlace mergePlaces(ESTPlace place) {
-        int newInkey = (this.getInputTrKey() | place.getInputTrKey());
-        int newOutKey = (this.getOutputTrKey() | place.getOutputTrKey());
-        boolean[] newVariantVector = this.getVariantVector();
-        for (int i = 0; i < this.getVariantVector().length; i++) {
-            if (place.getVariantVector()[i]) {
-                newVariantVector[i] = true;
-            }
-        }
+        ESTPlaceKey newInkey = this.getInputTrKey().or(place.getInputTrKey());
+        ESTPlaceKey newOutKey = this.getOutputTrKey().or(place.getOutputTrKey());
+        ESTVariantVector newVariantVector = this.getVariantVector();
+        newVariantVector.unite(place.getVariantVector());
         ESTPlace result = new ESTPlace(newInkey, newOutKey);
         result.setVariantVector(newVariantVector);
         return result;
     }
 
-    public int getActiveKey() {
+    public ESTPlaceKey getActiveKey() {
         return activeKey;
     }
 
-    public void setActiveKey(int activeKey) {
+    public void setActiveKey(ESTPlaceKey activeKey) {
         this.activeKey = activeKey;
     }
 
     //removes the transitions with liveness = false
-    public Pair<Integer, Integer> inOutKeyWithoutDeadTransitions(boolean[] transitionsLiveness) {
-        int resultInputTrKey = inputTrKey;
-        int resultOutputTrKey = outputTrKey;
-
+    public Pair<ESTPlaceKey, ESTPlaceKey> inOutKeyWithoutDeadTransitions(boolean[] transitionsLiveness) {
+        ESTPlaceKey deadKey = ESTPlaceKey.empty(transitionsLiveness.length);
         for (int i = 0; i < transitionsLiveness.length; i++) {
             if (!transitionsLiveness[i]) {
-                int mask = getMask(i, transitionsLiveness.length);
-                resultInputTrKey = (resultInputTrKey | mask) ^ mask;
-                resultOutputTrKey = (resultOutputTrKey | mask) ^ mask;
+                deadKey = deadKey.with(i);
             }
         }
+        ESTPlaceKey resultInputTrKey = inputTrKey.andNot(deadKey);
+        ESTPlaceKey resultOutputTrKey = outputTrKey.andNot(deadKey);
         return new Pair<>(resultInputTrKey, resultOutputTrKey);
     }
 }
@@ -0,0 +1,55 @@
+package org.processmining.est2miner.models.coreobjects;
+
+//immutable set of transitions, each transition is referred to by its position in the (ingoing) transitions array
+//logs with up to 64 transitions use a single long (ESTLongPlaceKey), larger logs fall back to a multi-word bitset (ESTWidePlaceKey)
+//keys are only combined with keys created for the same number of transitions
+public abstract class ESTPlaceKey {
+    private static final int LONG_KEY_LIMIT = 64;
+
+    //returns the key without any transitions for a log with the given number of transitions
+    public static ESTPlaceKey empty(final int numTransitions) {
+        if (numTransitions <= LONG_KEY_LIMIT) {
+            return ESTLongPlaceKey.EMPTY;
+        }
+        return new ESTWidePlaceKey(numTransitions);
+    }
+
+    //returns the key containing only the transition at the given position
+    public static ESTPlaceKey of(final int position, final int numTransitions) {
+        return empty(numTransitions).with(position);
+    }
+
+    public abstract boolean contains(int position);
+
+    //returns a copy of this key which additionally contains the given position
+    public abstract ESTPlaceKey with(int position);
+
+    public abstract ESTPlaceKey or(ESTPlaceKey key);
+
+    public abstract ESTPlaceKey and(ESTPlaceKey key);
+
+    public abstract ESTPlaceKey andNot(ESTPlaceKey key);
+
+    //returns the number of contained transitions
+    public abstract int size();
+
+    public abstract boolean isEmpty();
+
+    //returns the smallest contained position that is at least the given position, -1 if there is none
+    public abstract int nextPosition(int from);
+
+    //returns the largest contained position, -1 if the key is empty
+    public abstract int lastPosition();
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("{");
+        for (int i = nextPosition(0); i >= 0; i = nextPosition(i + 1)) {
+            if (result.length() > 1) {
+                result.append(",");
+            }
+            result.append(i);
+        }
+        return result.append("}").toString();
+    }
+}
@@ -1,24 +1,32 @@
 package org.processmining.est2miner.models.coreobjects;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 
 public class ESTProcessModel {
     private ArrayList<ESTPlace> places;
     private final String[] transitions;
     private boolean[] transitionsLiveness;
-    private boolean[] variantVector; //used to save which trace variants are fitting this process model
+    private ESTVariantVector variantVector; //used to save which trace variants are fitting this process model
     private ArrayList<ESTPlace> potentialPlaces;
     private final ArrayList<ESTPlace> discardedPlaces;
+    private Set<ESTPlace> accountedPlaces; //places whose variant vectors are already intersected into the PM variant vector
+
+    //incremental liveness, initialized by the first status update
+    private int[] liveVariantsPerTransition; //number of live variants containing the transition
+    private ESTVariantVector livenessVariantVector; //the PM variant vector the liveness counters correspond to
+    private int numLiveTraces;
+    private boolean activeKeysOutdated;
 
     public ESTProcessModel(final ArrayList<ESTPlace> places, final String[] transitions, int numVariants) {
         this.places = places;
         this.transitions = transitions;
 
-        this.variantVector = new boolean[numVariants];
-        for (int i = 0; i < numVariants; i++) {
-            variantVector[i] = true; // in the beginning all traces are replayable
-        }
+        this.variantVector = ESTVariantVector.allTrue(numVariants); // in the beginning all traces are replayable
+        this.accountedPlaces = Collections.newSetFromMap(new IdentityHashMap<>());
+        accountPlaces(places);
         this.potentialPlaces = new ArrayList<>();
         this.discardedPlaces = new ArrayList<>();
         //initially all transitions are live
@@ -32,29 +40,22 @@ public class ESTProcessModel {
     //add the place to the PM and update the PM variant vector accordingly (intersection of PM and Place replayable variants)
     public void addPlace(final ESTPlace p) {
         places.add(p);
-        boolean[] placeVariantVector = p.getVariantVector();
-        for (int i = 0; i < placeVariantVector.length; i++) {
-            if (!placeVariantVector[i]) {
-                this.variantVector[i] = false;
-            }
-        }
+        this.variantVector.intersect(p.getVariantVector());
+        accountedPlaces.add(p);
     }
 
 
-    //recompute and set PM variant vector based on the PM places variant vectors
-    private boolean[] recomputeVariantVector() {
-        boolean[] newVariantVector = new boolean[this.getVariantVector().length];
-        Arrays.fill(newVariantVector, true);
-        //compute new vector from places
-        for (ESTPlace place : this.getPlaces()) {
-            for (int i = 0; i < newVariantVector.length; i++) {
-                if (!place.getVariantVector()[i]) {
-                    newVariantVector[i] = false; //set to false if any place cannot replay this
-                }
+    //intersects the PM variant vector with the variant vectors of all given places that are not accounted for yet
+    //removing places never makes variants replayable again, so only new places change the PM variant vector
+    private void accountPlaces(final ArrayList<ESTPlace> places) {
+        Set<ESTPlace> newAccountedPlaces = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (ESTPlace place : places) {
+            if (!accountedPlaces.contains(place)) {
+                this.variantVector.intersect(place.getVariantVector()); //set to false if any place cannot replay this
             }
+            newAccountedPlaces.add(place);
         }
-        this.setVariantVector(newVariantVector);
-        return newVariantVector;
+        accountedPlaces = newAccountedPlaces;
     }
 
 
@@ -66,35 +67,54 @@ public class ESTProcessModel {
     }
 
 
-    //updates PM Variant vector based on place variant vectors
-    //updates the places activated activities set
-    //updates PM active transitions
-    //compares to old notifies about issues
+    //the PM Variant vector is kept up to date by addPlace() and setPlaces()
+    //updates PM active transitions and the number of live traces, based on the variants that are no longer replayable
+    //the places activated activities set is updated when it is needed next
     public void updateStatus(ESTLog log) {
-        //variant vector
-        boolean[] oldVariantVector = this.getVariantVector();
-        boolean[] newVariantVector = this.recomputeVariantVector();
-        for (int i = 0; i < oldVariantVector.length; i++) {
-            if (!oldVariantVector[i] && newVariantVector[i]) {
-                this.variantVector[i] = false;
-            }
-        }
         //dead transitions
-        this.transitionsLiveness = this.recomputeTransitionsLiveness(log);
+        this.updateTransitionsLiveness(log);
         //place connections
-        this.setActiveKeys();
+        this.activeKeysOutdated = true;
     }
 
-    //recomputes the live transitions based on this PM variant vector
-    private boolean[] recomputeTransitionsLiveness(ESTLog log) {
-        return log.getTransitionsLiveness(this.getVariantVector());
+    //updates the live transitions based on the variants removed from the PM variant vector since the last update
+    private void updateTransitionsLiveness(ESTLog log) {
+        if (liveVariantsPerTransition == null) {
+            liveVariantsPerTransition = new int[transitions.length];
+            livenessVariantVector = ESTVariantVector.allTrue(variantVector.size());
+            numLiveTraces = 0;
+            for (int t = 0; t < transitions.length; t++) {
+                liveVariantsPerTransition[t] = log.getTransitionOccurrences(t).cardinality();
+            }
+            for (int v = 0; v < variantVector.size(); v++) {
+                numLiveTraces += log.getTraceVariantCount(v);
+            }
+            for (int t = 0; t < transitions.length; t++) {
+                transitionsLiveness[t] = liveVariantsPerTransition[t] > 0;
+            }
+        }
+
+        ESTVariantVector removedVariants = livenessVariantVector.andNot(variantVector);
+        for (int v = removedVariants.nextSetBit(0); v >= 0; v = removedVariants.nextSetBit(v + 1)) {
+            for (int t : log.getVariantTransitions(v)) {
+                liveVariantsPerTransition[t]--;
+                if (liveVariantsPerTransition[t] == 0) {
+                    transitionsLiveness[t] = false;
+                }
+            }
+            numLiveTraces -= log.getTraceVariantCount(v);
+        }
+        livenessVariantVector = variantVector.copy();
     }
 
 
     public void printPlaceSummary() {
+        if (activeKeysOutdated) {
+            this.setActiveKeys();
+        }
         StringBuilder result = new StringBuilder("Current places in model (" + this.getPlaces().size() + "): \n depth \t #fitVarsP \t #activeTr \t transitions: ");
         for (ESTPlace place : this.getPlaces()) {
-            result.append("\n").append(place.getLevel()).append("\t").append(place.getLocalFitness()).append("\t \t").append(Integer.bitCount(place.getActiveKey())).append("\t \t").append(place.toTransitionsString(transitions));
+            result.append("\n").append(place.getLevel()).append("\t").append(place.getLocalFitness()).append("\t \t").append(place.getActiveKey().size()).append("\t \t").append(place.toTransitionsString(transitions));
         }
         System.out.println(result);
     }
@@ -102,18 +122,13 @@ public class ESTProcessModel {
 
     //for debugging. sets the PM places active keys based on the transitionLiveness
     private void setActiveKeys() {
-        boolean[] transitionsLiveness = this.getTransitionsLiveness();
+        ESTPlaceKey deadKey = getDeadTransitionsKey();
         for (ESTPlace place : places) {
-            int placeActiveKey = 0;
-            for (int i = 0; i < transitionsLiveness.length; i++) {
-                if (((getMask(i, transitions) & place.getInputTrKey())) > 0 || ((getMask(i, transitions) & place.getOutputTrKey()) > 0)) {//if the activity is connected to the place
-                    if (transitionsLiveness[i]) {//if the transition is live
-                        placeActiveKey = (placeActiveKey | getMask(i, transitions));//add the activity to the ones activated by place
-                    }
-                }
-            }
+            //the activities connected to the place, without the dead transitions
+            ESTPlaceKey placeActiveKey = place.getInputTrKey().or(place.getOutputTrKey()).andNot(deadKey);
             place.setActiveKey(placeActiveKey);
         }
+        activeKeysOutdated = false;
     }
 
 
@@ -130,24 +145,23 @@ public class ESTProcessModel {
 
     //counts the 'true' entries in this variant vector
     public int countLiveVariants() {
-        int result = 0;
-        for (boolean b : variantVector) {
-            if (b) {
-                result++;
-            }
-        }
-        return result;
+        return variantVector.cardinality();
     }
 
     //removes all dead transitions from the given key
-    public int removeDeadTransitions(int transitionKey) {
+    public ESTPlaceKey removeDeadTransitions(ESTPlaceKey transitionKey) {
+        return transitionKey.andNot(getDeadTransitionsKey());
+    }
+
+    //returns the key containing all dead transitions
+    private ESTPlaceKey getDeadTransitionsKey() {
+        ESTPlaceKey deadKey = ESTPlaceKey.empty(transitions.length);
         for (int i = 0; i < this.getTransitionsLiveness().length; i++) {
             if (!this.getTransitionsLiveness()[i]) {
-                int mask = getMask(i, transitions);
-                transitionKey = (transitionKey | mask) ^ mask;
+                deadKey = deadKey.with(i);
             }
         }
-        return transitionKey;
+        return deadKey;
     }
 
 
@@ -161,11 +175,11 @@ public class ESTProcessModel {
             ESTPlace place1 = placesToMerge.remove(0);
             while (!placesToMerge.isEmpty()) {
                 ESTPlace place2 = placesToMerge.remove(0);
-                int place1NonLoopInMask = this.removeDeadTransitions(place1.getNonLoopsInMask()); //mask indictaing all non-self-loop in transitions
-                int place1NonLoopOutMask = this.removeDeadTransitions(place1.getNonLoopsOutMask());
-                int place2NonLoopInMask = this.removeDeadTransitions(place2.getNonLoopsInMask()); //mask indictaing all non-self-loop in transitions
-                int place2NonLoopOutMask = this.removeDeadTransitions(place2.getNonLoopsOutMask());
-                if ((place1NonLoopInMask == place2NonLoopInMask) && (place1NonLoopOutMask == place2NonLoopOutMask)) {//if the non-looping transitions are exactly the same
+                ESTPlaceKey place1NonLoopInMask = this.removeDeadTransitions(place1.getNonLoopsInMask()); //mask indictaing all non-self-loop in transitions
+                ESTPlaceKey place1NonLoopOutMask = this.removeDeadTransitions(place1.getNonLoopsOutMask());
+                ESTPlaceKey place2NonLoopInMask = this.removeDeadTransitions(place2.getNonLoopsInMask()); //mask indictaing all non-self-loop in transitions
+                ESTPlaceKey place2NonLoopOutMask = this.removeDeadTransitions(place2.getNonLoopsOutMask());
+                if (place1NonLoopInMask.equals(place2NonLoopInMask) && place1NonLoopOutMask.equals(place2NonLoopOutMask)) {//if the non-looping transitions are exactly the same
                     place1 = place1.mergePlaces(place2);//merge if possible
                 } else {
                     remainingPlaces.add(place2);//if not mergeable, keep for next iteration
@@ -191,20 +205,20 @@ public class ESTProcessModel {
 
     public void setPlaces(final ArrayList<ESTPlace> places) {
         this.places = places;
+        accountPlaces(places);
     }
 
-    public boolean[] getVariantVector() {
+    public ESTVariantVector getVariantVector() {
         return variantVector;
     }
 
     public int getNumLiveTraces(ESTLog log) {
+        if (livenessVariantVector != null && livenessVariantVector.equals(this.variantVector)) {
+            return numLiveTraces;
+        }
         return log.countLiveTraces(this.variantVector);
     }
 
-    private void setVariantVector(boolean[] variantVector) {
-        this.variantVector = variantVector;
-    }
-
     public ArrayList<ESTPlace> getPotentialPlaces() {
         return potentialPlaces;
     }
@@ -224,8 +238,4 @@ public class ESTProcessModel {
     public int getNumDeadTransitions() {
         return (this.getTransitions().length - this.countLiveTransitions());
     }
-
-    protected int getMask(final int position, final String[] transitions) {
-        return (1 << (transitions.length - 1 - position));
-    }
 }
@@ -0,0 +1,140 @@
+package org.processmining.est2miner.models.coreobjects;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.TreeMap;
+
+//prefix trie of the chain variants of a log: every chain variant is the path from the root to one of the nodes, common prefixes are stored once
+//the nodes are numbered in depth-first preorder, so the subtree of node i consists of the nodes i ... subtreeEnd[i]-1,
+//and the variants ending in this subtree are variants[variantStart[i]] ... variants[variantStart[subtreeEnd[i]]-1]
+//the other variants are not contained, their replay does not reduce to a running sum over a prefix
+public class ESTVariantTrie {
+    private final int[] activities; //transition index of every node, the root (node 0) has none
+    private final int[] depths;
+    private final int[] subtreeEnd;
+    private final int[] variantStart;
+    private final int[] variants;
+    private final int maxDepth;
+    private final int numEvents; //summed size of the chain variants, i.e. the number of nodes without shared prefixes
+
+    public ESTVariantTrie(ESTCompiledPartialOrder[] compiledVariants) {
+        //build the trie with child maps first, then number the nodes in preorder
+        ArrayList<TreeMap<Integer, Integer>> children = new ArrayList<>();
+        ArrayList<Integer> nodeActivities = new ArrayList<>();
+        HashMap<Integer, ArrayList<Integer>> endingVariants = new HashMap<>();
+        children.add(new TreeMap<>());
+        nodeActivities.add(-1);
+        int events = 0;
+        for (int v = 0; v < compiledVariants.length; v++) {
+            if (!compiledVariants[v].isChain()) {
+                continue;
+            }
+            int node = 0;
+            for (int pos = 0; pos < compiledVariants[v].size(); pos++) {
+                int activity = compiledVariants[v].getOrderedActivity(pos);
+                Integer child = children.get(node).get(activity);
+                if (child == null) {
+                    child = children.size();
+                    children.get(node).put(activity, child);
+                    children.add(new TreeMap<>());
+                    nodeActivities.add(activity);
+                }
+                node = child;
+            }
+            endingVariants.computeIfAbsent(node, k -> new ArrayList<>()).add(v);
+            events += compiledVariants[v].size();
+        }
+        this.numEvents = events;
+
+        int numNodes = children.size();
+        this.activities = new int[numNodes];
+        this.depths = new int[numNodes];
+        this.subtreeEnd = new int[numNodes];
+        this.variantStart = new int[numNodes + 1];
+        ArrayList<Integer> variantList = new ArrayList<>();
+        int[] stack = new int[numNodes];
+        int[] stackDepths = new int[numNodes];
+        int size = 0;
+        int next = 0;
+        int deepest = 0;
+        stack[size++] = 0;
+        while (size > 0) {
+            size--;
+            int node = stack[size];
+            int depth = stackDepths[size];
+            activities[next] = nodeActivities.get(node);
+            depths[next] = depth;
+            variantStart[next] = variantList.size();
+            if (endingVariants.containsKey(node)) {
+                variantList.addAll(endingVariants.get(node));
+            }
+            deepest = Math.max(deepest, depth);
+            next++;
+            for (int child : children.get(node).descendingMap().values()) {
+                stack[size] = child;
+                stackDepths[size] = depth + 1;
+                size++;
+            }
+        }
+        variantStart[numNodes] = variantList.size();
+        this.maxDepth = deepest;
+
+        //in preorder, a subtree ends at the next node that is not deeper than its root
+        int[] open = new int[deepest + 1];
+        int numOpen = 0;
+        for (int node = 0; node < numNodes; node++) {
+            while (numOpen > 0 && depths[open[numOpen - 1]] >= depths[node]) {
+                subtreeEnd[open[--numOpen]] = node;
+            }
+            open[numOpen++] = node;
+        }
+        while (numOpen > 0) {
+            subtreeEnd[open[--numOpen]] = numNodes;
+        }
+
+        this.variants = new int[variantList.size()];
+        for (int k = 0; k < variants.length; k++) {
+            variants[k] = variantList.get(k);
+        }
+    }
+
+    //sets underfed[v] for every chain variant v on which the running token sum of the place (given by its producing and consuming transitions) becomes negative
+    //every prefix is replayed once, the subtree below the first underfed prefix is marked without visiting it
+    //whether such a variant is also overfed only depends on its token balance, see PlaceEvaluator
+    public void markUnderfedVariants(boolean[] produces, boolean[] consumes, boolean[] underfed) {
+        int[] tokens = new int[maxDepth + 1];
+        int node = 1;
+        while (node < activities.length) {
+            int activity = activities[node];
+            int marking = tokens[depths[node] - 1];
+            if (consumes[activity]) {
+                marking--;
+                if (marking < 0) {
+                    for (int k = variantStart[node]; k < variantStart[subtreeEnd[node]]; k++) {
+                        underfed[variants[k]] = true;
+                    }
+                    node = subtreeEnd[node];
+                    continue;
+                }
+            }
+            if (produces[activity]) {
+                marking++;
+            }
+            tokens[depths[node]] = marking;
+            node++;
+        }
+    }
+
+    //G&S
+    public int getNumNodes() {
+        return activities.length - 1;
+    }
+
+    public int getNumEvents() {
+        return numEvents;
+    }
+
+    public int getNumVariants() {
+        return variants.length;
+    }
+}
@@ -0,0 +1,157 @@
+package org.processmining.est2miner.models.coreobjects;
+
+import java.util.Arrays;
+
+//set of trace variants (positions in the trace variants of the ESTLog), packed into 64 variants per long
+//bits beyond the size are always 0, so words can be combined and counted without masking
+public class ESTVariantVector {
+    private final int size;
+    private final long[] words;
+
+    public ESTVariantVector(final int size) {
+        this.size = size;
+        this.words = new long[(size + 63) >>> 6];
+    }
+
+    private ESTVariantVector(final int size, final long[] words) {
+        this.size = size;
+        this.words = words;
+    }
+
+    //returns a vector of the given size containing all variants
+    public static ESTVariantVector allTrue(final int size) {
+        ESTVariantVector result = new ESTVariantVector(size);
+        Arrays.fill(result.words, -1L);
+        result.clearUnusedBits();
+        return result;
+    }
+
+    //returns the sums of the given per variant weights for every word, used by weightedCardinality()
+    public static int[] computeWordWeights(final int[] weights) {
+        int[] result = new int[(weights.length + 63) >>> 6];
+        for (int i = 0; i < weights.length; i++) {
+            result[i >>> 6] += weights[i];
+        }
+        return result;
+    }
+
+    private void clearUnusedBits() {
+        if ((size & 63) != 0) {
+            words[words.length - 1] &= (1L << size) - 1;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean get(final int pos) {
+        return (words[pos >>> 6] & (1L << pos)) != 0;
+    }
+
+    public void set(final int pos, final boolean value) {
+        if (value) {
+            words[pos >>> 6] |= 1L << pos;
+        } else {
+            words[pos >>> 6] &= ~(1L << pos);
+        }
+    }
+
+    public ESTVariantVector copy() {
+        return new ESTVariantVector(size, words.clone());
+    }
+
+    //removes all variants not contained in the given vector
+    public void intersect(final ESTVariantVector vector) {
+        for (int i = 0; i < words.length; i++) {
+            words[i] &= vector.words[i];
+        }
+    }
+
+    //adds all variants contained in the given vector
+    public void unite(final ESTVariantVector vector) {
+        for (int i = 0; i < words.length; i++) {
+            words[i] |= vector.words[i];
+        }
+    }
+
+    //returns the intersection of both vectors as a new vector
+    public ESTVariantVector and(final ESTVariantVector vector) {
+        long[] result = new long[words.length];
+        for (int i = 0; i < words.length; i++) {
+            result[i] = words[i] & vector.words[i];
+        }
+        return new ESTVariantVector(size, result);
+    }
+
+    //returns the variants contained in this vector but not in the given vector as a new vector
+    public ESTVariantVector andNot(final ESTVariantVector vector) {
+        long[] result = new long[words.length];
+        for (int i = 0; i < words.length; i++) {
+            result[i] = words[i] & ~vector.words[i];
+        }
+        return new ESTVariantVector(size, result);
+    }
+
+    //returns whether both vectors contain a common variant
+    public boolean intersects(final ESTVariantVector vector) {
+        for (int i = 0; i < words.length; i++) {
+            if ((words[i] & vector.words[i]) != 0L) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //returns the number of contained variants
+    public int cardinality() {
+        int result = 0;
+        for (long word : words) {
+            result += Long.bitCount(word);
+        }
+        return result;
+    }
+
+    //returns the sum of the weights of all contained variants, full words are summed up using the precomputed word weights
+    public int weightedCardinality(final int[] weights, final int[] wordWeights) {
+        int result = 0;
+        for (int w = 0; w < words.length; w++) {
+            long word = words[w];
+            if (word == -1L) {
+                result += wordWeights[w];
+            } else {
+                while (word != 0L) {
+                    result += weights[(w << 6) + Long.numberOfTrailingZeros(word)];
+                    word &= word - 1;
+                }
+            }
+        }
+        return result;
+    }
+
+    //returns the smallest contained variant that is at least the given position, -1 if there is none
+    public int nextSetBit(final int from) {
+        int w = from >>> 6;
+        if (w >= words.length) {
+            return -1;
+        }
+        long word = words[w] & (-1L << from);
+        while (word == 0L) {
+            if (++w == words.length) {
+                return -1;
+            }
+            word = words[w];
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    @Override
+    public boolean equals(Object vector) {
+        return vector instanceof ESTVariantVector && ((ESTVariantVector) vector).size == size && Arrays.equals(((ESTVariantVector) vector).words, words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+}
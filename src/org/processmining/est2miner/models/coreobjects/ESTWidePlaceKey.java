@@ -0,0 +1,104 @@
+package org.processmining.est2miner.models.coreobjects;
+
+import java.util.Arrays;
+
+//place key for logs with more than 64 transitions, the transition at position i is bit (i % 64) of word (i / 64)
+final class ESTWidePlaceKey extends ESTPlaceKey {
+    private final long[] words;
+
+    ESTWidePlaceKey(final int numTransitions) {
+        this.words = new long[(numTransitions + 63) >>> 6];
+    }
+
+    private ESTWidePlaceKey(final long[] words) {
+        this.words = words;
+    }
+
+    public boolean contains(final int position) {
+        return (words[position >>> 6] & (1L << position)) != 0;
+    }
+
+    public ESTPlaceKey with(final int position) {
+        long[] result = words.clone();
+        result[position >>> 6] |= 1L << position;
+        return new ESTWidePlaceKey(result);
+    }
+
+    public ESTPlaceKey or(final ESTPlaceKey key) {
+        long[] other = ((ESTWidePlaceKey) key).words;
+        long[] result = new long[words.length];
+        for (int i = 0; i < words.length; i++) {
+            result[i] = words[i] | other[i];
+        }
+        return new ESTWidePlaceKey(result);
+    }
+
+    public ESTPlaceKey and(final ESTPlaceKey key) {
+        long[] other = ((ESTWidePlaceKey) key).words;
+        long[] result = new long[words.length];
+        for (int i = 0; i < words.length; i++) {
+            result[i] = words[i] & other[i];
+        }
+        return new ESTWidePlaceKey(result);
+    }
+
+    public ESTPlaceKey andNot(final ESTPlaceKey key) {
+        long[] other = ((ESTWidePlaceKey) key).words;
+        long[] result = new long[words.length];
+        for (int i = 0; i < words.length; i++) {
+            result[i] = words[i] & ~other[i];
+        }
+        return new ESTWidePlaceKey(result);
+    }
+
+    public int size() {
+        int result = 0;
+        for (long word : words) {
+            result += Long.bitCount(word);
+        }
+        return result;
+    }
+
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int nextPosition(final int from) {
+        int i = from >>> 6;
+        if (i >= words.length) {
+            return -1;
+        }
+        long remaining = words[i] & (-1L << from);
+        while (remaining == 0L) {
+            if (++i == words.length) {
+                return -1;
+            }
+            remaining = words[i];
+        }
+        return (i << 6) + Long.numberOfTrailingZeros(remaining);
+    }
+
+    public int lastPosition() {
+        for (int i = words.length - 1; i >= 0; i--) {
+            if (words[i] != 0L) {
+                return (i << 6) + 63 - Long.numberOfLeadingZeros(words[i]);
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean equals(Object key) {
+        return key instanceof ESTWidePlaceKey && Arrays.equals(((ESTWidePlaceKey) key).words, words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+}
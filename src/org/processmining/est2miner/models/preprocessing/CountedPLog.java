@@ -57,43 +57,45 @@ public class CountedPLog {
     private HashMap<ESTPartialOrder, Integer> computeCounts(ESTPartialOrderLog log) {
         HashMap<String, HashSet<ESTPartialOrder>> variantStringToPTrace = computeVariantStringToPTrace(log);
         HashMap<ESTPartialOrder, Integer> preliminaryCounts = makePreliminaryCounts(variantStringToPTrace);
-        HashMap<Integer, ArrayList<Pair<ESTPartialOrder, Integer>>> countsForLength = computeCountsInLengthBins(preliminaryCounts);
-        HashMap<Integer, HashMap<ESTPartialOrder, Integer>> countsForLengthPartial = combineCountsOfHomomorphismsWithBins(countsForLength);
+        HashMap<String, ArrayList<Pair<ESTPartialOrder, Integer>>> countsForInvariant = computeCountsInInvariantBins(preliminaryCounts);
+        HashMap<String, HashMap<ESTPartialOrder, Integer>> countsForInvariantPartial = combineCountsOfHomomorphismsWithBins(countsForInvariant);
 
-        return combineResult(countsForLengthPartial);
+        return combineResult(countsForInvariantPartial);
     }
 
-    private HashMap<ESTPartialOrder, Integer> combineResult(HashMap<Integer, HashMap<ESTPartialOrder, Integer>> countsForLengthPartial) {
+    private HashMap<ESTPartialOrder, Integer> combineResult(HashMap<String, HashMap<ESTPartialOrder, Integer>> countsForInvariantPartial) {
         HashMap<ESTPartialOrder, Integer> result = new HashMap<>();
 
-        for (HashMap<ESTPartialOrder, Integer> value : countsForLengthPartial.values()) {
+        for (HashMap<ESTPartialOrder, Integer> value : countsForInvariantPartial.values()) {
             result.putAll(value);
         }
 
         return result;
     }
 
-    private HashMap<Integer, HashMap<ESTPartialOrder, Integer>> combineCountsOfHomomorphismsWithBins(HashMap<Integer, ArrayList<Pair<ESTPartialOrder, Integer>>> countsForLength) {
-        HashMap<Integer, HashMap<ESTPartialOrder, Integer>> result = new HashMap<>();
+    private HashMap<String, HashMap<ESTPartialOrder, Integer>> combineCountsOfHomomorphismsWithBins(HashMap<String, ArrayList<Pair<ESTPartialOrder, Integer>>> countsForInvariant) {
+        HashMap<String, HashMap<ESTPartialOrder, Integer>> result = new HashMap<>();
 
-        for (Map.Entry<Integer, ArrayList<Pair<ESTPartialOrder, Integer>>> integerHashMapEntry : countsForLength.entrySet()) {
-            result.put(integerHashMapEntry.getKey(), combineCountsOfHomomorphisms(integerHashMapEntry.getValue()));
+        for (Map.Entry<String, ArrayList<Pair<ESTPartialOrder, Integer>>> stringHashMapEntry : countsForInvariant.entrySet()) {
+            result.put(stringHashMapEntry.getKey(), combineCountsOfHomomorphisms(stringHashMapEntry.getValue()));
         }
 
         return result;
     }
 
-    private HashMap<Integer, ArrayList<Pair<ESTPartialOrder, Integer>>> computeCountsInLengthBins(HashMap<ESTPartialOrder, Integer> preliminaryCounts) {
-        HashMap<Integer, ArrayList<Pair<ESTPartialOrder, Integer>>> result = new HashMap<>();
+    //bins the partial orders by an isomorphism invariant, isomorphic partial orders always end up in the same bin
+    //so the pairwise isomorphism checks are only needed within a bin
+    private HashMap<String, ArrayList<Pair<ESTPartialOrder, Integer>>> computeCountsInInvariantBins(HashMap<ESTPartialOrder, Integer> preliminaryCounts) {
+        HashMap<String, ArrayList<Pair<ESTPartialOrder, Integer>>> result = new HashMap<>();
 
         for (Map.Entry<ESTPartialOrder, Integer> pTraceIntegerEntry : preliminaryCounts.entrySet()) {
-            int length = pTraceIntegerEntry.getKey().size();
+            String invariant = createInvariantString(pTraceIntegerEntry.getKey());
 
-            if (!result.containsKey(length)) {
-                result.put(length, new ArrayList<>());
+            if (!result.containsKey(invariant)) {
+                result.put(invariant, new ArrayList<>());
             }
 
-            result.get(length).add(new Pair<>(pTraceIntegerEntry.getKey(), pTraceIntegerEntry.getValue()));
+            result.get(invariant).add(new Pair<>(pTraceIntegerEntry.getKey(), pTraceIntegerEntry.getValue()));
         }
 
         return result;
@@ -156,6 +158,49 @@ public class CountedPLog {
         return traceString.toString();
     }
 
+    //invariant of the partial order under isomorphism: the sorted signatures of all events
+    //the signature of an event consists of its label, its layer (longest path from a start event) and the sorted labels of its direct predecessors and successors
+    private String createInvariantString(ESTPartialOrder trace) {
+        int n = trace.size();
+        int[] layer = new int[n];
+        int[] remainingPredecessors = new int[n];
+        LinkedList<Integer> queue = new LinkedList<>();
+        for (int i = 0; i < n; i++) {
+            remainingPredecessors[i] = trace.getPredecessorIndices(i).size();
+            if (remainingPredecessors[i] == 0) {
+                queue.add(i);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int event = queue.removeFirst();
+            for (Integer successor : trace.getSuccessorIndices(event)) {
+                layer[successor] = Math.max(layer[successor], layer[event] + 1);
+                remainingPredecessors[successor]--;
+                if (remainingPredecessors[successor] == 0) {
+                    queue.add(successor);
+                }
+            }
+        }
+
+        String[] signatures = new String[n];
+        for (int i = 0; i < n; i++) {
+            signatures[i] = trace.get(i) + "@" + layer[i] + getSortedLabels(trace, trace.getPredecessorIndices(i)) + getSortedLabels(trace, trace.getSuccessorIndices(i));
+        }
+        Arrays.sort(signatures);
+
+        return n + ":" + String.join(";", signatures);
+    }
+
+    private String getSortedLabels(ESTPartialOrder trace, Collection<Integer> events) {
+        ArrayList<String> labels = new ArrayList<>();
+        for (Integer event : events) {
+            labels.add(trace.get(event));
+        }
+        Collections.sort(labels);
+
+        return labels.toString();
+    }
+
     public boolean arePartialOrdersIsomorphic(ESTPartialOrder partialOrderA, ESTPartialOrder partialOrderB) {
         if (partialOrderA.size() != partialOrderB.size()) {
             return false;
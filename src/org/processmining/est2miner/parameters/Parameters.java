@@ -9,12 +9,24 @@ public class Parameters extends PluginParametersImpl {
     private final double threshold_delta; // in [0,1], determmines fraction of traces in original log
     private final boolean removeImps;
     private final int max_depth;
+    private final int numThreads; // number of worker threads used for place evaluation, 1 evaluates sequentially
+    private final long maxCandidatesInMemory; // candidates kept in the heap by the candidate traversal, further candidates are spilled to disk
 
     public Parameters(int max_depth, double threshold_tau_result, double threshold_delta_result, boolean remIP) {
+        this(max_depth, threshold_tau_result, threshold_delta_result, remIP, Runtime.getRuntime().availableProcessors());
+    }
+
+    public Parameters(int max_depth, double threshold_tau_result, double threshold_delta_result, boolean remIP, int numThreads) {
+        this(max_depth, threshold_tau_result, threshold_delta_result, remIP, numThreads, getDefaultMaxCandidatesInMemory());
+    }
+
+    public Parameters(int max_depth, double threshold_tau_result, double threshold_delta_result, boolean remIP, int numThreads, long maxCandidatesInMemory) {
         this.threshold_tau = threshold_tau_result;
         this.threshold_delta = threshold_delta_result;
         this.removeImps = remIP;
         this.max_depth = max_depth;
+        this.numThreads = Math.max(1, numThreads);
+        this.maxCandidatesInMemory = Math.max(1, maxCandidatesInMemory);
     }
 
     public Parameters() {
@@ -22,6 +34,13 @@ public class Parameters extends PluginParametersImpl {
         this.threshold_delta = 1;
         this.removeImps = true;
         this.max_depth = 4;
+        this.numThreads = Runtime.getRuntime().availableProcessors();
+        this.maxCandidatesInMemory = getDefaultMaxCandidatesInMemory();
+    }
+
+    //a queued candidate takes a few bytes, so this bounds the candidate queue to a small share of the heap
+    private static long getDefaultMaxCandidatesInMemory() {
+        return Runtime.getRuntime().maxMemory() / 256;
     }
 
     public double getThresholdTau() {
@@ -48,6 +67,19 @@ public class Parameters extends PluginParametersImpl {
         return removeImps;
     }
 
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    public long getMaxCandidatesInMemory() {
+        return maxCandidatesInMemory;
+    }
+
+    //number of candidates taken from the traverser per parallel evaluation round
+    public int getEvaluationBatchSize() {
+        return 32 * numThreads;
+    }
+
     @Override
     public String toString() {
         return "tau-" + threshold_tau + "-delta-" + threshold_delta + "-rImp-" + removeImps + "-dep-" + max_depth;
@@ -45,7 +45,10 @@ public class ESTSquareMinerPlugin {
         System.out.println("_____________ eST - Miner ___________________________________________________________________________________");
         Parameters parameters = getGeneralParameters(context);
 
-        return runDiscovery(new ESTPartialOrderLog(inputLog, parameters.getClassifier()), null, parameters, context);
+        ESTPartialOrderLog plog = new ESTPartialOrderLog(inputLog, parameters.getClassifier(), parameters.getNumThreads());
+        plog.printMemorySummary();
+
+        return runDiscovery(plog, null, parameters, context);
     }
 
     @PluginVariant(requiredParameterLabels = {1, 2})
@@ -109,12 +112,12 @@ public class ESTSquareMinerPlugin {
 
         //-------------Initialize "working classes"-------------------------------------------------------------------------------------------------------
         AbstractImplicitPlacesRemover IPRemover;
-        IPRemover = new OptimizationBasedImplicitPlaceRemover(transitions, log);
+        IPRemover = new OptimizationBasedImplicitPlaceRemover(transitions, log, parameters.getNumThreads());
 
         //select traverser based on chosen traversal strategy
-        BFSCandidateTraverser candidates = new BFSCandidateTraverser(transitions, outTransitionsMapping, parameters);
+        BFSCandidateTraverser candidates = new BFSCandidateTraverser(transitions, outTransitionsMapping, parameters, log);
 
-        PlaceEvaluator evaluator = new PlaceEvaluator(countedPLog, parameters.getThresholdTau());
+        PlaceEvaluator evaluator = new PlaceEvaluator(log, parameters.getThresholdTau());
 
         int tauAbsolute = (int) Math.ceil(parameters.getThresholdTau() * log.getNumOfTraces());
         int[] traceCountsArray = new int[traceVariantCounts.size()];
@@ -186,7 +189,6 @@ public class ESTSquareMinerPlugin {
             discoveredPM = IPRemover.removeAllIPs(discoveredPM);
 
             PlugInStatistics.getInstance().incTimeImpTest(System.currentTimeMillis() - IPRemoveStart);
-            IPRemover = new OptimizationBasedImplicitPlaceRemover(transitions, log);
             discoveredPM = IPRemover.removeAllIPs(discoveredPM);
             System.out.println("Number of places after final removing implicit places: " + discoveredPM.getPlaces().size() + "\n");
 
@@ -317,8 +319,8 @@ public class ESTSquareMinerPlugin {
 
     //returns true if the place does not have at least one live connection for ingoing and outgoing
     private boolean hasToFewLiveConnections(ESTPlace place, boolean[] transitionsLiveness) {
-        Pair<Integer, Integer> integerIntegerPair = place.inOutKeyWithoutDeadTransitions(transitionsLiveness);
-        return Integer.bitCount(integerIntegerPair.getFirst()) < 1 || Integer.bitCount(integerIntegerPair.getSecond()) < 1;
+        Pair<ESTPlaceKey, ESTPlaceKey> liveInOutKeys = place.inOutKeyWithoutDeadTransitions(transitionsLiveness);
+        return liveInOutKeys.getFirst().isEmpty() || liveInOutKeys.getSecond().isEmpty();
     }
 
 
@@ -338,24 +340,14 @@ public class ESTSquareMinerPlugin {
     //--------------------- General Helper Functions ------------------------------------------------------------
 
     //returns a collection containing all transitions names from the given transitions array
-    private Collection<String> getTransitionNames(final int key, final String[] transitions) {
+    private Collection<String> getTransitionNames(final ESTPlaceKey key, final String[] transitions) {
         Collection<String> result = new ArrayList<>();
-        if (key > (Math.pow(2, transitions.length))) {
-            return null;
-        }
-        for (int i = 0; i < transitions.length; i++) {
-            if ((key & getMask(i, transitions)) > 0) { //test key for ones
-                result.add(transitions[i]);
-            }
+        for (int i = key.nextPosition(0); i >= 0; i = key.nextPosition(i + 1)) {
+            result.add(transitions[i]);
         }
         return result;
     }
 
-    //for a given position in the transition array return the corresponding bitmask
-    private int getMask(final int pos, final String[] transitions) {
-        return 1 << (transitions.length - 1 - pos);
-    }
-
 
     @Override
     public String toString() {
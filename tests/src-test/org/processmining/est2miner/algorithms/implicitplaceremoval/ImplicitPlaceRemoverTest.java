@@ -0,0 +1,153 @@
+package org.processmining.est2miner.algorithms.implicitplaceremoval;
+
+import org.apache.commons.math3.optim.linear.*;
+import org.junit.Test;
+import org.processmining.est2miner.models.coreobjects.ESTPlace;
+import org.processmining.est2miner.models.coreobjects.ESTPlaceKey;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+//the remover decides implicitness by structural tests, a cache of proven non-implicit places and an LPP reduced to the connected component,
+//all of them have to agree with the original LPP over all places (with variables Y, Z, k and x) on random nets
+public class ImplicitPlaceRemoverTest {
+
+    @Test
+    public void isImplicitEqualsOriginalLPP() {
+        Random random = new Random(3);
+        int numImplicit = 0;
+        int numChecks = 0;
+        for (int run = 0; run < 400; run++) {
+            int numTransitions = 3 + random.nextInt(6);
+            String[] transitions = new String[numTransitions];
+            for (int t = 0; t < numTransitions; t++) {
+                transitions[t] = "t" + t;
+            }
+            OptimizationBasedImplicitPlaceRemover remover = new OptimizationBasedImplicitPlaceRemover(transitions, null);
+            ArrayList<ESTPlace> places = new ArrayList<>();
+            int numPlaces = 2 + random.nextInt(10);
+            while (places.size() < numPlaces) {
+                places.add(createPlace(random, places, numTransitions));
+            }
+
+            //places are added, removed and added back between the checks, the same remover (and its cache) is used for all of them
+            ArrayList<ESTPlace> removedPlaces = new ArrayList<>();
+            for (int step = 0; step < 6; step++) {
+                for (int p = 0; p < places.size(); p++) {
+                    boolean expected = isImplicitByOriginalLPP(p, places, numTransitions);
+                    ArrayList<ESTPlace> otherPlaces = new ArrayList<>(places);
+                    otherPlaces.remove(p);
+                    boolean implicit = !remover.implicitRelatedToPlace(places.get(p), otherPlaces).isEmpty();
+                    assertEquals("implicitness of " + places.get(p) + " among " + places, expected, implicit);
+                    numChecks++;
+                    numImplicit += expected ? 1 : 0;
+                }
+                if (places.size() > 2 && random.nextBoolean()) {
+                    removedPlaces.add(places.remove(random.nextInt(places.size())));
+                } else if (!removedPlaces.isEmpty() && random.nextBoolean()) {
+                    places.add(removedPlaces.remove(random.nextInt(removedPlaces.size())));
+                } else {
+                    places.add(createPlace(random, places, numTransitions));
+                }
+            }
+        }
+        assertTrue("too few implicit places: " + numImplicit + " of " + numChecks, numImplicit > numChecks / 20);
+    }
+
+    //random places, copies of existing places, and combinations of two existing places, which are often implicit
+    private static ESTPlace createPlace(Random random, ArrayList<ESTPlace> places, int numTransitions) {
+        int kind = places.size() < 2 ? 0 : random.nextInt(4);
+        if (kind == 1) {
+            ESTPlace place = places.get(random.nextInt(places.size()));
+            return new ESTPlace(place.getInputTrKey(), place.getOutputTrKey());
+        }
+        if (kind == 2) {
+            ESTPlace place1 = places.get(random.nextInt(places.size()));
+            ESTPlace place2 = places.get(random.nextInt(places.size()));
+            ESTPlaceKey in = place1.getInputTrKey().or(place2.getInputTrKey());
+            ESTPlaceKey out = place1.getOutputTrKey().or(place2.getOutputTrKey());
+            if (!in.andNot(out).isEmpty() && !out.andNot(in).isEmpty()) {
+                return new ESTPlace(in.andNot(out), out.andNot(in));
+            }
+        }
+        ESTPlaceKey in = ESTPlaceKey.empty(numTransitions);
+        ESTPlaceKey out = ESTPlaceKey.empty(numTransitions);
+        while (in.isEmpty() || out.isEmpty()) {
+            for (int t = 0; t < numTransitions; t++) {
+                double density = kind == 3 ? 0.5 : 0.25;
+                in = random.nextDouble() < density ? in.with(t) : in;
+                out = random.nextDouble() < density ? out.with(t) : out;
+            }
+        }
+        return new ESTPlace(in, out);
+    }
+
+    //the LPP as formulated originally: variables Y | Z | k | x, with Y(currP) = Z(currP) = 0, Y >= Z >= 0, k >= 0, x = 0, x - k <= -1,
+    //Y*inc <= k*inc(currP) for all transitions, and Z*pre(t) + x >= pre(currP, t) for all ingoing transitions t of currP
+    private static boolean isImplicitByOriginalLPP(int currP, ArrayList<ESTPlace> places, int numTransitions) {
+        int numPlaces = places.size();
+        int numVariables = 2 * numPlaces + 2;
+        int k = 2 * numPlaces;
+        int x = k + 1;
+        int[][] pre = new int[numPlaces][numTransitions];
+        int[][] inc = new int[numPlaces][numTransitions];
+        for (int p = 0; p < numPlaces; p++) {
+            for (int t = 0; t < numTransitions; t++) {
+                pre[p][t] = places.get(p).getInputTrKey().contains(t) ? 1 : 0;
+                inc[p][t] = pre[p][t] - (places.get(p).getOutputTrKey().contains(t) ? 1 : 0);
+            }
+        }
+
+        double[] objective = new double[numVariables];
+        objective[k] = 1;
+        Collection<LinearConstraint> constraints = new ArrayList<>();
+        constraints.add(new LinearConstraint(unit(numVariables, currP), Relationship.EQ, 0));
+        constraints.add(new LinearConstraint(unit(numVariables, numPlaces + currP), Relationship.EQ, 0));
+        for (int p = 0; p < numPlaces; p++) {
+            constraints.add(new LinearConstraint(unit(numVariables, numPlaces + p), Relationship.GEQ, 0));
+            double[] yAtLeastZ = unit(numVariables, p);
+            yAtLeastZ[numPlaces + p] = -1;
+            constraints.add(new LinearConstraint(yAtLeastZ, Relationship.GEQ, 0));
+        }
+        double[] xBelowK = unit(numVariables, x);
+        xBelowK[k] = -1;
+        constraints.add(new LinearConstraint(xBelowK, Relationship.LEQ, -1));
+        constraints.add(new LinearConstraint(unit(numVariables, k), Relationship.GEQ, 0));
+        constraints.add(new LinearConstraint(unit(numVariables, x), Relationship.EQ, 0));
+        for (int t = 0; t < numTransitions; t++) {
+            double[] coefficients = new double[numVariables];
+            for (int p = 0; p < numPlaces; p++) {
+                coefficients[p] = inc[p][t];
+            }
+            coefficients[k] = -inc[currP][t];
+            constraints.add(new LinearConstraint(coefficients, Relationship.LEQ, 0));
+        }
+        for (int t = 0; t < numTransitions; t++) {
+            if (pre[currP][t] == 1) {
+                double[] coefficients = new double[numVariables];
+                for (int p = 0; p < numPlaces; p++) {
+                    coefficients[numPlaces + p] = pre[p][t];
+                }
+                coefficients[x] = 1;
+                constraints.add(new LinearConstraint(coefficients, Relationship.GEQ, 1));
+            }
+        }
+
+        try {
+            new SimplexSolver().optimize(new LinearObjectiveFunction(objective, 0), new LinearConstraintSet(constraints));
+        } catch (NoFeasibleSolutionException e) {
+            return false;
+        }
+        return true;
+    }
+
+    private static double[] unit(int numVariables, int variable) {
+        double[] result = new double[numVariables];
+        result[variable] = 1;
+        return result;
+    }
+}
@@ -0,0 +1,97 @@
+package org.processmining.est2miner.algorithms.placeevaluation;
+
+import org.junit.Test;
+import org.processmining.est2miner.models.coreobjects.ESTCompiledPartialOrder;
+import org.processmining.est2miner.models.coreobjects.ESTPartialOrder;
+import org.processmining.est2miner.models.coreobjects.ESTPlace;
+import org.processmining.est2miner.models.coreobjects.ESTPlaceKey;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+//sharing the status within a projection group relies on the replay of the non-chain variants being exact unless the place is overfed,
+//so the grouped replay is compared to the replay of every single variant on random partial orders and places
+public class VariantProjectionsTest {
+    private static final String[] ACTIVITIES = {"ArtificialStart", "ArtificialEnd", "a", "b", "c", "d"};
+
+    @Test
+    public void groupedReplayEqualsFullReplay() {
+        Random random = new Random(17);
+        HashMap<String, Integer> transitionIndices = new HashMap<>();
+        for (int t = 0; t < ACTIVITIES.length; t++) {
+            transitionIndices.put(ACTIVITIES[t], t);
+        }
+        int sharedGroups = 0;
+        for (int run = 0; run < 300; run++) {
+            ESTCompiledPartialOrder[] variants = new ESTCompiledPartialOrder[20 + random.nextInt(60)];
+            int[] variantCounts = new int[variants.length];
+            int maxVariantSize = 0;
+            for (int v = 0; v < variants.length; v++) {
+                variants[v] = new ESTCompiledPartialOrder(createPartialOrder(random), transitionIndices);
+                variantCounts[v] = 1 + random.nextInt(5);
+                maxVariantSize = Math.max(maxVariantSize, variants[v].size());
+            }
+            ESTPlace.setNumVariants(variants.length);
+            VariantProjections projections = new VariantProjections(variants, ACTIVITIES.length);
+
+            for (int p = 0; p < 50; p++) {
+                boolean[] produces = new boolean[ACTIVITIES.length];
+                boolean[] consumes = new boolean[ACTIVITIES.length];
+                ESTPlaceKey inKey = ESTPlaceKey.empty(ACTIVITIES.length);
+                ESTPlaceKey outKey = ESTPlaceKey.empty(ACTIVITIES.length);
+                for (int t = 0; t < ACTIVITIES.length; t++) {
+                    produces[t] = random.nextInt(3) == 0;
+                    consumes[t] = random.nextInt(3) == 0;
+                    inKey = produces[t] ? inKey.with(t) : inKey;
+                    outKey = consumes[t] ? outKey.with(t) : outKey;
+                }
+                VariantProjections.Grouping grouping = projections.getGrouping(inKey.or(outKey));
+                sharedGroups += variants.length - grouping.getNumGroups();
+
+                ESTPlace fullPlace = new ESTPlace(inKey, outKey);
+                eST2PlaceEvaluator.evaluatePlaceWithLog(variants, variantCounts, maxVariantSize, produces, consumes, fullPlace, null, null, null, null, null, 0);
+                ESTPlace groupedPlace = new ESTPlace(inKey, outKey);
+                eST2PlaceEvaluator.evaluatePlaceWithLog(variants, variantCounts, maxVariantSize, produces, consumes, groupedPlace, null, null, null, grouping, null, 0);
+
+                String place = fullPlace + " in run " + run;
+                assertEquals("overfed variants of " + place, fullPlace.getOverfedVariants(), groupedPlace.getOverfedVariants());
+                assertEquals("underfed variants of " + place, fullPlace.getUnderfedVariants(), groupedPlace.getUnderfedVariants());
+                assertEquals("fitting variants of " + place, fullPlace.getVariantVector(), groupedPlace.getVariantVector());
+            }
+        }
+        assertTrue("the groupings never share a replay", sharedGroups > 0);
+    }
+
+    //chains, random dependencies between the events (including transitive ones) and events without dependencies
+    private static ESTPartialOrder createPartialOrder(Random random) {
+        int numEvents = 1 + random.nextInt(6);
+        String[] labels = new String[numEvents];
+        for (int e = 0; e < numEvents; e++) {
+            labels[e] = ACTIVITIES[2 + random.nextInt(ACTIVITIES.length - 2)];
+        }
+        ArrayList<Integer> sources = new ArrayList<>();
+        ArrayList<Integer> targets = new ArrayList<>();
+        int shape = random.nextInt(3);
+        for (int i = 0; i < numEvents; i++) {
+            for (int j = i + 1; j < numEvents; j++) {
+                if (shape == 0 ? j == i + 1 : random.nextInt(shape == 1 ? 2 : 5) == 0) {
+                    sources.add(i);
+                    targets.add(j);
+                }
+            }
+        }
+        return new ESTPartialOrder(labels, toArray(sources), toArray(targets), new HashMap<>());
+    }
+
+    private static int[] toArray(ArrayList<Integer> values) {
+        int[] result = new int[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+}
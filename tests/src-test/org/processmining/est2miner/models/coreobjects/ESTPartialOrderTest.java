@@ -0,0 +1,78 @@
+package org.processmining.est2miner.models.coreobjects;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+
+//the CSR arrays of ESTPartialOrder have to hold every dependency once, with the artificial start and end events connected like before
+public class ESTPartialOrderTest {
+
+    //the successors and predecessors of every event are the distinct events of its dependencies, sorted by index
+    @Test
+    public void neighboursAreSortedDependencies() {
+        Random random = new Random(7);
+        for (int run = 0; run < 200; run++) {
+            int numEvents = run % 20 == 0 ? 70000 + random.nextInt(1000) : 2 + random.nextInt(40);
+            String[] labels = new String[numEvents];
+            for (int i = 0; i < numEvents; i++) {
+                labels[i] = "a" + random.nextInt(5);
+            }
+            //random fan-outs of some events to later events, every dependency may be repeated
+            ArrayList<int[]> dependencies = new ArrayList<>();
+            for (int source = 0; source < numEvents - 1; source++) {
+                if (random.nextInt(numEvents > 1000 ? 5000 : 3) != 0) {
+                    continue;
+                }
+                int fanOut = 1 + random.nextInt(30);
+                for (int k = 0; k < fanOut; k++) {
+                    int target = source + 1 + random.nextInt(numEvents - source - 1);
+                    dependencies.add(new int[]{source, target});
+                    if (random.nextInt(4) == 0) {
+                        dependencies.add(new int[]{source, target});
+                    }
+                }
+            }
+            int[] sources = new int[dependencies.size()];
+            int[] targets = new int[dependencies.size()];
+            ArrayList<TreeSet<Integer>> successors = new ArrayList<>();
+            ArrayList<TreeSet<Integer>> predecessors = new ArrayList<>();
+            for (int i = 0; i < numEvents + 2; i++) {
+                successors.add(new TreeSet<>());
+                predecessors.add(new TreeSet<>());
+            }
+            for (int d = 0; d < dependencies.size(); d++) {
+                sources[d] = dependencies.get(d)[0];
+                targets[d] = dependencies.get(d)[1];
+                successors.get(sources[d] + 1).add(targets[d] + 1);
+                predecessors.get(targets[d] + 1).add(sources[d] + 1);
+            }
+            //the artificial start precedes the connected events without predecessors, the artificial end follows those without successors
+            int last = numEvents + 1;
+            for (int i = 1; i < last; i++) {
+                boolean connected = !successors.get(i).isEmpty() || !predecessors.get(i).isEmpty();
+                if (connected && predecessors.get(i).isEmpty()) {
+                    successors.get(0).add(i);
+                    predecessors.get(i).add(0);
+                }
+            }
+            for (int i = 1; i < last; i++) {
+                boolean connected = !successors.get(i).isEmpty() || !predecessors.get(i).isEmpty();
+                if (connected && successors.get(i).isEmpty()) {
+                    successors.get(i).add(last);
+                    predecessors.get(last).add(i);
+                }
+            }
+            ESTPartialOrder partialOrder = new ESTPartialOrder(labels, sources, targets, new HashMap<>());
+
+            for (int i = 0; i < numEvents + 2; i++) {
+                assertEquals("successors of " + i, new ArrayList<>(successors.get(i)), new ArrayList<>(partialOrder.getSuccessorIndices(i)));
+                assertEquals("predecessors of " + i, new ArrayList<>(predecessors.get(i)), new ArrayList<>(partialOrder.getPredecessorIndices(i)));
+            }
+        }
+    }
+}